@@ -28,6 +28,10 @@ android {
 	buildFeatures {
 		viewBinding  = true
 	}
+	testOptions {
+		// Benchmarks and tests construct LogAdapter on the plain JVM
+		unitTests.isReturnDefaultValues = true
+	}
 	compileOptions {
 		sourceCompatibility = JavaVersion.VERSION_1_8
 		targetCompatibility = JavaVersion.VERSION_1_8
@@ -44,6 +48,8 @@ dependencies {
 	implementation("org.java-websocket:Java-WebSocket:1.5.1")
 
 	testImplementation("junit:junit:4.13.2")
+	testImplementation("org.openjdk.jmh:jmh-core:1.37")
+	testAnnotationProcessor("org.openjdk.jmh:jmh-generator-annprocess:1.37")
 	androidTestImplementation("androidx.test.ext:junit:1.2.1")
 	androidTestImplementation("androidx.test.espresso:espresso-core:3.6.1")
 }
\ No newline at end of file
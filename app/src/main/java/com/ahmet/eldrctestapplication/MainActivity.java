@@ -3,39 +3,75 @@ package com.ahmet.eldrctestapplication;
 import androidx.appcompat.app.AppCompatActivity;
 
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
 
+import com.ahmet.eldrctestapplication.communication.MotorCommandCoalescer;
 import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder;
 import com.ahmet.eldrctestapplication.databinding.ActivityMainBinding;
 import com.ahmet.eldrctestapplication.log.LogAdapter;
 import com.ahmet.eldrctestapplication.log.LogEntry;
+import com.ahmet.eldrctestapplication.log.LogRingBuffer;
+import com.ahmet.eldrctestapplication.log.SessionLogWriter;
 import com.ahmet.eldrctestapplication.virtual_joystick.JoystickView;
+import com.ahmet.eldrctestapplication.websocket.SendPriority;
 import com.ahmet.eldrctestapplication.websocket.WebSocketManager;
 
-import java.util.ArrayList;
+import java.io.File;
+
 
 public class MainActivity extends AppCompatActivity {
     ActivityMainBinding binding;
 
     JoystickView virtualLeftJoystick;
     LogAdapter logAdapter;
+    SessionLogWriter sessionLog;
     WebSocketManager webSocketManager;
 
     private static final String url = "ws://192.168.3.2:2005";
+    private static final String SESSION_LOG_DIR = "session-log";
 
     int leftMotorsSpeed = 0;
     int rightMotorsSpeed = 0;
 
+    // Drops repeated drive commands, the keepalive task resends the last one for the robot's safety timeout
+    MotorCommandCoalescer motorCommandCoalescer;
+    private final Handler keepaliveHandler = new Handler(Looper.getMainLooper());
+    private final Runnable keepaliveTask = new Runnable() {
+        @Override
+        public void run() {
+            if (webSocketManager != null && webSocketManager.isSocketOpen()) {
+                motorCommandCoalescer.tick();
+            }
+            keepaliveHandler.postDelayed(this, KEEPALIVE_TICK_MS);
+        }
+    };
+    private static final long KEEPALIVE_TICK_MS = MotorCommandCoalescer.DEFAULT_KEEPALIVE_MS / 2;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         binding = ActivityMainBinding.inflate(getLayoutInflater());
         setContentView(binding.getRoot());
 
-        logAdapter = new LogAdapter(this, new ArrayList<>(), binding.logListView);
+        logAdapter = new LogAdapter(this, LogRingBuffer.DEFAULT_CAPACITY, binding.logListView);
+        // Kept on disk so the log of a crashed session can be pulled and read with SessionLogReader
+        sessionLog = new SessionLogWriter(new File(getFilesDir(), SESSION_LOG_DIR));
+        logAdapter.setSessionLog(sessionLog);
         binding.logListView.setAdapter(logAdapter);
 
 
 
+        motorCommandCoalescer = new MotorCommandCoalescer((speedFL, speedFR, speedRL, speedRR, speedML, speedMR) -> {
+            String packet = RobotMessageBuilder.createMotorSpeedPacket(RobotMessageBuilder.Transmitter.MASTER, RobotMessageBuilder.Receiver.ALL, RobotMessageBuilder.Component.MOTOR_DRIVE,
+                    speedFL, speedFR, speedRL, speedRR, speedML, speedMR);
+            // Stops take the safety lane so they overtake any queued traffic
+            boolean posted = postCommand(RobotMessageBuilder.Component.MOTOR_DRIVE, packet,
+                    SendPriority.ofMotorSpeeds(speedFL, speedFR, speedRL, speedRR, speedML, speedMR));
+            // Not marked as sent while disconnected, so the same stick position is sent once back
+            return posted ? packet.length() : -1;
+        });
+
         virtualLeftJoystick = binding.virtualJoystickLeft;
         virtualLeftJoystick.setOnMoveListener(new JoystickView.OnMoveListener() {
             @Override
@@ -50,23 +86,38 @@ public class MainActivity extends AppCompatActivity {
                 leftMotorsSpeed = Math.max(-100, Math.min(100, leftMotorsSpeed));
                 rightMotorsSpeed = Math.max(-100, Math.min(100, rightMotorsSpeed));
 
-                sendMessage(RobotMessageBuilder.createMotorSpeedPacket(RobotMessageBuilder.Transmitter.MASTER , RobotMessageBuilder.Receiver.ALL , RobotMessageBuilder.Component.MOTOR_DRIVE ,
-                        leftMotorsSpeed , leftMotorsSpeed , leftMotorsSpeed , rightMotorsSpeed ,rightMotorsSpeed , rightMotorsSpeed));
+                motorCommandCoalescer.submit(leftMotorsSpeed , leftMotorsSpeed , leftMotorsSpeed , rightMotorsSpeed ,rightMotorsSpeed , rightMotorsSpeed);
             }
         });
 
 
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        logAdapter.setSessionLog(null);
+        // Only signals the writer thread, it flushes the segment in the background
+        sessionLog.close();
+    }
+
     @Override
     protected void onStart() {
         super.onStart();
         connectWebSocket();
+        motorCommandCoalescer.reset();
+        keepaliveHandler.postDelayed(keepaliveTask, KEEPALIVE_TICK_MS);
     }
 
     @Override
     protected void onStop() {
         super.onStop();
+        keepaliveHandler.removeCallbacks(keepaliveTask);
+        logAdapter.log(LogEntry.LogType.DEBUG, "Motor commands sent=" + motorCommandCoalescer.getSentCount()
+                + ", keepalive=" + motorCommandCoalescer.getKeepaliveCount()
+                + ", suppressed=" + motorCommandCoalescer.getSuppressedCount()
+                + " (" + motorCommandCoalescer.getSuppressedBytes() + " bytes)");
+        logAdapter.log(LogEntry.LogType.DEBUG, "Log delivery " + logAdapter.getDrainStats());
         disconnectWebSocket();
     }
 
@@ -85,6 +136,8 @@ public class MainActivity extends AppCompatActivity {
 
         try {
             webSocketManager = new WebSocketManager(url, logAdapter);
+            // The robot stops on its own command timeout, make sure we resend a fresh command once back
+            webSocketManager.setLinkLostListener(silenceMs -> motorCommandCoalescer.reset());
             webSocketManager.connect();
         } catch (Exception e) {
             logAdapter.log(LogEntry.LogType.ERROR, "Failed to create WebSocketManager: " + e.getMessage());
@@ -96,6 +149,9 @@ public class MainActivity extends AppCompatActivity {
             webSocketManager.disconnect();
             logAdapter.log(LogEntry.LogType.INFO, "WebSocket disconnected");
         }
+        if (webSocketManager != null) {
+            webSocketManager.shutdown();
+        }
     }
 
     private boolean isValidWebSocketUrl(String url) {
@@ -103,21 +159,14 @@ public class MainActivity extends AppCompatActivity {
         return url.startsWith("ws://") || url.startsWith("wss://");
     }
 
-    private void sendMessage(String message) {
-        if (message.isEmpty()) {
-            logAdapter.log(LogEntry.LogType.ERROR, "Message is empty");
-            return;
-        }
-
+    // Hands the command to the writer thread, the UI thread never waits for the socket.
+    // Returns false when there is no open socket to post to.
+    private boolean postCommand(RobotMessageBuilder.Component component, String message, SendPriority priority) {
         if (webSocketManager == null || !webSocketManager.isSocketOpen()) {
             logAdapter.log(LogEntry.LogType.ERROR, "WebSocket is not connected \n" + "Message: " + message);
-            return;
-        }
-
-        try {
-            webSocketManager.sendMessage(message);
-        } catch (Exception e) {
-            logAdapter.log(LogEntry.LogType.ERROR, "Failed to send message: " + e.getMessage());
+            return false;
         }
+        webSocketManager.postCommand(component, message, priority);
+        return true;
     }
 }
\ No newline at end of file
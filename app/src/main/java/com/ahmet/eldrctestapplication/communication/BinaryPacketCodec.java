@@ -0,0 +1,125 @@
+package com.ahmet.eldrctestapplication.communication;
+
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Component;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Index;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Process;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Receiver;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Transmitter;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Compact binary alternative to the ASCII packet format, for the same packet model.
+ * Layout of one packet:
+ * <pre>
+ *   2 bytes  packet id, big endian
+ *   2 bytes  header: transmitter(2 bits) receiver(2) process(3) component(4) index(3), enum ordinals
+ *   1 byte   payload count
+ *   n        payload values as zigzag varints (1 byte for -64..63, 2 bytes for motor speeds)
+ * </pre>
+ * A six motor command is 11 to 17 bytes instead of up to ~40 in ASCII.
+ * Binary WebSocket frames keep their boundaries, so a frame holds whole packets, possibly several.
+ */
+public class BinaryPacketCodec {
+
+    public static final int HEADER_SIZE = 5;
+    public static final int MAX_VARINT_SIZE = 5;
+    public static final int MAX_PAYLOAD = 255;
+
+    private static final Transmitter[] TRANSMITTERS = Transmitter.values();
+    private static final Receiver[] RECEIVERS = Receiver.values();
+    private static final Process[] PROCESSES = Process.values();
+    private static final Component[] COMPONENTS = Component.values();
+    private static final Index[] INDEXES = Index.values();
+
+    private final int[] payload;
+    private long malformedCount;
+
+    public BinaryPacketCodec() {
+        this(PacketDecoder.DEFAULT_MAX_PAYLOAD);
+    }
+
+    public BinaryPacketCodec(int maxPayload) {
+        this.payload = new int[maxPayload];
+    }
+
+    // Encodes with the next id from the shared sequencer
+    public static int encode(ByteBuffer dst, Transmitter transmitter, Receiver receiver, Process process,
+                             Component component, Index index, int[] data) {
+        return encode(dst, RobotMessageBuilder.nextPacketId(receiver), transmitter, receiver, process,
+                component, index, data, data.length);
+    }
+
+    public static int encode(ByteBuffer dst, int packetId, Transmitter transmitter, Receiver receiver,
+                             Process process, Component component, Index index, int[] data, int length) {
+        if (length > MAX_PAYLOAD) {
+            throw new IllegalArgumentException("Payload longer than " + MAX_PAYLOAD);
+        }
+        int start = dst.position();
+        dst.putShort((short) packetId);
+        dst.putShort((short) (transmitter.ordinal() << 12 | receiver.ordinal() << 10
+                | process.ordinal() << 7 | component.ordinal() << 3 | index.ordinal()));
+        dst.put((byte) length);
+        for (int i = 0; i < length; i++) {
+            putVarint(dst, data[i] << 1 ^ data[i] >> 31);
+        }
+        return dst.position() - start;
+    }
+
+    // Decodes every packet in the frame between position and limit; the buffer position is left untouched.
+    // The payload array handed to the handler is reused between packets.
+    public void decode(ByteBuffer frame, PacketHandler handler) {
+        int position = frame.position();
+        int limit = frame.limit();
+        while (limit - position >= HEADER_SIZE) {
+            int packetId = frame.getShort(position) & 0xFFFF;
+            int header = frame.getShort(position + 2) & 0xFFFF;
+            int length = frame.get(position + 4) & 0xFF;
+            position += HEADER_SIZE;
+
+            int transmitter = header >>> 12 & 0x3;
+            int receiver = header >>> 10 & 0x3;
+            int process = header >>> 7 & 0x7;
+            int component = header >>> 3 & 0xF;
+            int index = header & 0x7;
+            if (transmitter >= TRANSMITTERS.length || receiver >= RECEIVERS.length || process >= PROCESSES.length
+                    || component >= COMPONENTS.length || index >= INDEXES.length || length > payload.length) {
+                malformedCount++;
+                return;
+            }
+
+            for (int i = 0; i < length; i++) {
+                int value = 0;
+                int shift = 0;
+                int b;
+                do {
+                    if (position == limit || shift > 28) {
+                        malformedCount++;
+                        return;
+                    }
+                    b = frame.get(position++);
+                    value |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while ((b & 0x80) != 0);
+                payload[i] = value >>> 1 ^ -(value & 1);
+            }
+            handler.onPacket(packetId, TRANSMITTERS[transmitter], RECEIVERS[receiver], PROCESSES[process],
+                    COMPONENTS[component], INDEXES[index], payload, length);
+        }
+        if (position != limit) {
+            malformedCount++;
+        }
+    }
+
+    public long getMalformedCount() {
+        return malformedCount;
+    }
+
+    private static void putVarint(ByteBuffer dst, int value) {
+        while ((value & ~0x7F) != 0) {
+            dst.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        dst.put((byte) value);
+    }
+}
@@ -0,0 +1,66 @@
+package com.ahmet.eldrctestapplication.communication;
+
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Component;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Index;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Process;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Receiver;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Transmitter;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Re-encodes ASCII packets as {@link BinaryPacketCodec} packets with the same packet ids, so
+ * everything built as ASCII (String commands, requests, MESSAGE chunks, batched frames) can go out
+ * in the binary wire format. The input may hold several packets; the binary form is never longer
+ * than the ASCII one, so a destination with the input's length always has room.
+ *
+ * Thread safe, transcodes are serialized on the instance.
+ */
+public class BinaryTranscoder implements PacketHandler {
+
+    private final PacketDecoder decoder = new PacketDecoder();
+    // Only set during transcode()
+    private ByteBuffer dst;
+    private boolean overflow;
+
+    public BinaryTranscoder() {
+        decoder.addHandler(this);
+    }
+
+    // Writes the binary form of the packets between position and limit at dst's position, the source
+    // position is left untouched. Returns false and leaves dst unchanged when the input is not a
+    // sequence of whole, well formed packets or does not fit.
+    public synchronized boolean transcode(ByteBuffer ascii, ByteBuffer dst) {
+        int start = dst.position();
+        long malformed = decoder.getMalformedCount();
+        this.dst = dst;
+        overflow = false;
+        try {
+            decoder.feed(ascii);
+        } finally {
+            this.dst = null;
+        }
+        boolean complete = !overflow && decoder.getMalformedCount() == malformed && !decoder.hasPartialPacket();
+        decoder.reset();
+        if (!complete) {
+            dst.position(start);
+        }
+        return complete;
+    }
+
+    @Override
+    public void onPacket(int packetId, Transmitter transmitter, Receiver receiver, Process process,
+                         Component component, Index index, int[] payload, int length) {
+        if (overflow) {
+            return;
+        }
+        int position = dst.position();
+        try {
+            BinaryPacketCodec.encode(dst, packetId, transmitter, receiver, process, component, index, payload, length);
+        } catch (BufferOverflowException e) {
+            dst.position(position);
+            overflow = true;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.ahmet.eldrctestapplication.communication;
+
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Component;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Index;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Process;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Receiver;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Transmitter;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Pre-encoded "TRPCI[" packet headers for every enum combination, indexed by enum ordinals.
+ * Encoding a packet then becomes a bulk copy of the header plus the id and payload.
+ * Both tables are built once, on first use. The byte table holds 4200 six byte headers, about 25 KB;
+ * the 4200 header Strings cost about 48 bytes each on a 64-bit VM, roughly 200 KB of heap.
+ */
+public final class HeaderCache {
+
+    // Transmitter, Receiver, Process, Component, Index and the opening bracket
+    public static final int HEADER_LENGTH = 6;
+
+    private static final Transmitter[] TRANSMITTERS = Transmitter.values();
+    private static final Receiver[] RECEIVERS = Receiver.values();
+    private static final Process[] PROCESSES = Process.values();
+    private static final Component[] COMPONENTS = Component.values();
+    private static final Index[] INDEXES = Index.values();
+
+    private static final int COUNT = TRANSMITTERS.length * RECEIVERS.length * PROCESSES.length
+            * COMPONENTS.length * INDEXES.length;
+
+    private static final byte[] HEADER_BYTES = new byte[COUNT * HEADER_LENGTH];
+    private static final String[] HEADER_TEXT = new String[COUNT];
+
+    static {
+        for (Transmitter transmitter : TRANSMITTERS) {
+            for (Receiver receiver : RECEIVERS) {
+                for (Process process : PROCESSES) {
+                    for (Component component : COMPONENTS) {
+                        for (Index index : INDEXES) {
+                            int slot = slot(transmitter, receiver, process, component, index);
+                            char[] header = {transmitter.getId(), receiver.getId(), process.getCode(),
+                                    component.getCode(), index.getCode(), '['};
+                            for (int i = 0; i < HEADER_LENGTH; i++) {
+                                HEADER_BYTES[slot * HEADER_LENGTH + i] = (byte) header[i];
+                            }
+                            HEADER_TEXT[slot] = new String(header);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private HeaderCache() {
+    }
+
+    // Copies the pre-encoded header bytes to the buffer position
+    public static void put(ByteBuffer dst, Transmitter transmitter, Receiver receiver, Process process,
+                           Component component, Index index) {
+        dst.put(HEADER_BYTES, slot(transmitter, receiver, process, component, index) * HEADER_LENGTH, HEADER_LENGTH);
+    }
+
+    // Header as text for the String based builders
+    public static String text(Transmitter transmitter, Receiver receiver, Process process,
+                              Component component, Index index) {
+        return HEADER_TEXT[slot(transmitter, receiver, process, component, index)];
+    }
+
+    private static int slot(Transmitter transmitter, Receiver receiver, Process process,
+                            Component component, Index index) {
+        return (((transmitter.ordinal() * RECEIVERS.length + receiver.ordinal())
+                * PROCESSES.length + process.ordinal())
+                * COMPONENTS.length + component.ordinal())
+                * INDEXES.length + index.ordinal();
+    }
+}
@@ -0,0 +1,162 @@
+package com.ahmet.eldrctestapplication.communication;
+
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Component;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Index;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Process;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Receiver;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Transmitter;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Splits arbitrary content into MESSAGE ('#') packets.
+ * Every chunk carries "[parameter:transfer:sequence:total:b0:b1:...]", the content bytes are
+ * written as unsigned values so the packets stay inside the normal int payload model.
+ * Chunks are encoded one at a time straight from the source buffer, the content is never
+ * copied into an intermediate String. {@link MessageReassembler} puts them back together.
+ */
+public final class MessageChunker {
+
+    // parameter, transfer, sequence and total precede the content bytes
+    public static final int CHUNK_HEADER_VALUES = 4;
+    public static final int MAX_CHUNK_SIZE = PacketDecoder.DEFAULT_MAX_PAYLOAD - CHUNK_HEADER_VALUES;
+    public static final int DEFAULT_CHUNK_SIZE = 48;
+
+    // Transfer ids wrap within 0..999 like packet ids
+    private static final int MAX_TRANSFER_ID = 999;
+    private static final AtomicInteger transferCounter = new AtomicInteger();
+
+    private MessageChunker() {
+    }
+
+    public static int chunkCount(int contentLength, int chunkSize) {
+        return Math.max(1, (contentLength + chunkSize - 1) / chunkSize);
+    }
+
+    public static int nextTransferId() {
+        return (transferCounter.getAndIncrement() & Integer.MAX_VALUE) % (MAX_TRANSFER_ID + 1);
+    }
+
+    // Worst case packet size of one chunk, used to size the encode buffer
+    public static int maxPacketSize(int chunkSize) {
+        // id + header + four signed ints with separators + "255:" per content byte
+        return PacketIdSequencer.ID_LENGTH + HeaderCache.HEADER_LENGTH + CHUNK_HEADER_VALUES * 12 + chunkSize * 4;
+    }
+
+    // Encodes the content between position and limit chunk by chunk and hands every packet to the sender.
+    // The sender gets the same buffer each time and has to consume or copy it before returning.
+    // Returns the transfer id, the content buffer position is left untouched.
+    public static int stream(Transmitter transmitter, Receiver receiver, Component component, Index index,
+                             int parameter, ByteBuffer content, int chunkSize, Consumer<ByteBuffer> sender) {
+        Transfer transfer = open(transmitter, receiver, component, index, parameter, content, chunkSize);
+        int packetSize = maxPacketSize(chunkSize);
+        boolean pooled = packetSize <= PacketEncoder.MAX_PACKET_SIZE;
+        ByteBuffer packet = pooled ? PacketEncoder.acquire() : ByteBuffer.allocate(packetSize);
+        try {
+            while (transfer.hasNext()) {
+                packet.clear();
+                transfer.encodeNext(packet);
+                packet.flip();
+                sender.accept(packet);
+            }
+        } finally {
+            if (pooled) {
+                PacketEncoder.release(packet);
+            }
+        }
+        return transfer.getTransferId();
+    }
+
+    // Starts a transfer whose chunks are encoded one at a time on demand, e.g. by a writer thread
+    // interleaving them with other traffic. The content must not change until the transfer is done.
+    public static Transfer open(Transmitter transmitter, Receiver receiver, Component component, Index index,
+                                int parameter, ByteBuffer content, int chunkSize) {
+        if (chunkSize < 1 || chunkSize > MAX_CHUNK_SIZE) {
+            throw new IllegalArgumentException("Chunk size must be 1.." + MAX_CHUNK_SIZE);
+        }
+        return new Transfer(transmitter, receiver, component, index, parameter, content.duplicate(), chunkSize);
+    }
+
+    // Writes one chunk holding content[from, to) at the buffer position
+    public static int encodeChunk(ByteBuffer dst, Transmitter transmitter, Receiver receiver, Component component,
+                                  Index index, int parameter, int transferId, int sequence, int total,
+                                  ByteBuffer content, int from, int to) {
+        int start = dst.position();
+        PacketIdSequencer.put(dst, RobotMessageBuilder.nextPacketId(receiver));
+        HeaderCache.put(dst, transmitter, receiver, Process.MESSAGE, component, index);
+        PacketEncoder.putInt(dst, parameter);
+        dst.put((byte) ':');
+        PacketEncoder.putInt(dst, transferId);
+        dst.put((byte) ':');
+        PacketEncoder.putInt(dst, sequence);
+        dst.put((byte) ':');
+        PacketEncoder.putInt(dst, total);
+        for (int i = from; i < to; i++) {
+            dst.put((byte) ':');
+            PacketEncoder.putInt(dst, content.get(i) & 0xFF);
+        }
+        dst.put((byte) ']');
+        return dst.position() - start;
+    }
+
+    // Chunk by chunk encoder of one transfer, not thread safe
+    public static final class Transfer {
+
+        private final Transmitter transmitter;
+        private final Receiver receiver;
+        private final Component component;
+        private final Index index;
+        private final int parameter;
+        private final ByteBuffer content;
+        private final int chunkSize;
+        private final int transferId;
+        private final int total;
+        private int sequence;
+
+        private Transfer(Transmitter transmitter, Receiver receiver, Component component, Index index,
+                         int parameter, ByteBuffer content, int chunkSize) {
+            this.transmitter = transmitter;
+            this.receiver = receiver;
+            this.component = component;
+            this.index = index;
+            this.parameter = parameter;
+            this.content = content;
+            this.chunkSize = chunkSize;
+            this.transferId = nextTransferId();
+            this.total = chunkCount(content.remaining(), chunkSize);
+        }
+
+        public boolean hasNext() {
+            return sequence < total;
+        }
+
+        // Writes the next chunk at the buffer position, which needs maxPacketSize(chunkSize) bytes of room
+        public int encodeNext(ByteBuffer dst) {
+            if (!hasNext()) {
+                throw new IllegalStateException("Transfer " + transferId + " is complete");
+            }
+            int from = content.position() + sequence * chunkSize;
+            int to = Math.min(from + chunkSize, content.limit());
+            return encodeChunk(dst, transmitter, receiver, component, index,
+                    parameter, transferId, sequence++, total, content, from, to);
+        }
+
+        public int getTransferId() {
+            return transferId;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public int getSequence() {
+            return sequence;
+        }
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+    }
+}
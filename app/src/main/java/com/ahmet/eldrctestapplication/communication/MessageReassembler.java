@@ -0,0 +1,206 @@
+package com.ahmet.eldrctestapplication.communication;
+
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Component;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Index;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Process;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Receiver;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Transmitter;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Rebuilds content sent with {@link MessageChunker} from the decoded MESSAGE packets.
+ * Chunks of one transfer must arrive in order, which the WebSocket guarantees; a gap or an
+ * oversized transfer drops that transfer. A first chunk announcing no chunks or more chunks than
+ * the size limit allows is rejected. Transfers whose sender gave up are evicted once they went
+ * without a chunk for the idle timeout, and a new transfer is refused while all open transfers
+ * together already buffer the byte cap. Content values outside 0..255 are malformed and drop the
+ * transfer. The listener is called without the reassembler's lock held, so it may call back in.
+ * Register it on the decoder of the connection.
+ */
+public class MessageReassembler implements PacketHandler {
+
+    public static final int DEFAULT_MAX_MESSAGE_SIZE = 1024 * 1024;
+    public static final int DEFAULT_MAX_BUFFERED_BYTES = 4 * DEFAULT_MAX_MESSAGE_SIZE;
+    public static final long DEFAULT_IDLE_TIMEOUT_MS = 5000;
+
+    public interface MessageListener {
+        // content is only valid during the call
+        void onMessage(Transmitter transmitter, Component component, Index index, int parameter,
+                       byte[] content, int length);
+    }
+
+    private final Map<Integer, Transfer> transfers = new HashMap<>();
+    private final int maxMessageSize;
+    private final int maxBufferedBytes;
+    private final long idleTimeoutNanos;
+    private final LongSupplier clock;
+    private volatile MessageListener listener;
+    private long droppedCount;
+    private long evictedCount;
+    // Content bytes held by all open transfers
+    private int bufferedBytes;
+    private long lastSweepNanos;
+
+    public MessageReassembler() {
+        this(DEFAULT_MAX_MESSAGE_SIZE);
+    }
+
+    public MessageReassembler(int maxMessageSize) {
+        this(maxMessageSize, Math.max(maxMessageSize, DEFAULT_MAX_BUFFERED_BYTES), DEFAULT_IDLE_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public MessageReassembler(int maxMessageSize, int maxBufferedBytes, long idleTimeout, TimeUnit unit) {
+        this(maxMessageSize, maxBufferedBytes, idleTimeout, unit, System::nanoTime);
+    }
+
+    // The clock is only replaced by tests
+    MessageReassembler(int maxMessageSize, int maxBufferedBytes, long idleTimeout, TimeUnit unit, LongSupplier clock) {
+        if (maxMessageSize <= 0 || maxBufferedBytes < maxMessageSize) {
+            throw new IllegalArgumentException("Limits must be positive and the byte cap at least one message");
+        }
+        this.maxMessageSize = maxMessageSize;
+        this.maxBufferedBytes = maxBufferedBytes;
+        this.idleTimeoutNanos = unit.toNanos(idleTimeout);
+        this.clock = clock;
+        this.lastSweepNanos = clock.getAsLong();
+    }
+
+    public void setListener(MessageListener listener) {
+        this.listener = listener;
+    }
+
+    // Transfers dropped for a gap, a bad header or the size limits, evicted ones included
+    public synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+
+    // Transfers dropped because no chunk arrived within the idle timeout
+    public synchronized long getEvictedCount() {
+        return evictedCount;
+    }
+
+    public synchronized int getPendingCount() {
+        return transfers.size();
+    }
+
+    public synchronized int getBufferedBytes() {
+        return bufferedBytes;
+    }
+
+    // Drops transfers idle for longer than the timeout, also done while packets arrive
+    public synchronized void evictIdle() {
+        long now = clock.getAsLong();
+        lastSweepNanos = now;
+        Iterator<Transfer> iterator = transfers.values().iterator();
+        while (iterator.hasNext()) {
+            Transfer transfer = iterator.next();
+            if (now - transfer.lastChunkNanos > idleTimeoutNanos) {
+                iterator.remove();
+                bufferedBytes -= transfer.length;
+                droppedCount++;
+                evictedCount++;
+            }
+        }
+    }
+
+    @Override
+    public void onPacket(int packetId, Transmitter transmitter, Receiver receiver, Process process,
+                         Component component, Index index, int[] payload, int length) {
+        if (process != Process.MESSAGE || length < MessageChunker.CHUNK_HEADER_VALUES) {
+            return;
+        }
+        Transfer complete = accept(transmitter, payload, length);
+        MessageListener current = listener;
+        // A completed transfer is out of the map, so its content can be handed over without the lock
+        if (complete != null && current != null) {
+            current.onMessage(transmitter, component, index, payload[0], complete.content, complete.length);
+        }
+    }
+
+    // Adds the chunk to its transfer and returns the transfer once its last chunk arrived
+    private synchronized Transfer accept(Transmitter transmitter, int[] payload, int length) {
+        int transferId = payload[1];
+        int sequence = payload[2];
+        int total = payload[3];
+        int key = transmitter.getId() << 16 | transferId;
+        long now = clock.getAsLong();
+        if (now - lastSweepNanos > idleTimeoutNanos / 4) {
+            evictIdle();
+        }
+
+        Transfer transfer = transfers.get(key);
+        if (sequence == 0) {
+            if (transfer != null) {
+                drop(key);
+            }
+            // Every chunk but the only one of an empty message carries at least one byte
+            if (total <= 0 || total > maxMessageSize || bufferedBytes >= maxBufferedBytes) {
+                droppedCount++;
+                return null;
+            }
+            transfer = new Transfer(total);
+            transfers.put(key, transfer);
+        } else if (transfer == null || transfer.nextSequence != sequence || transfer.total != total) {
+            drop(key);
+            return null;
+        }
+
+        int chunkLength = length - MessageChunker.CHUNK_HEADER_VALUES;
+        if (transfer.length + chunkLength > maxMessageSize || bufferedBytes + chunkLength > maxBufferedBytes) {
+            drop(key);
+            return null;
+        }
+        for (int i = MessageChunker.CHUNK_HEADER_VALUES; i < length; i++) {
+            if (payload[i] < 0 || payload[i] > 0xFF) {
+                drop(key);
+                return null;
+            }
+        }
+        transfer.ensureCapacity(transfer.length + chunkLength);
+        for (int i = MessageChunker.CHUNK_HEADER_VALUES; i < length; i++) {
+            transfer.content[transfer.length++] = (byte) payload[i];
+        }
+        bufferedBytes += chunkLength;
+        transfer.nextSequence++;
+        transfer.lastChunkNanos = now;
+
+        if (transfer.nextSequence != transfer.total) {
+            return null;
+        }
+        transfers.remove(key);
+        bufferedBytes -= transfer.length;
+        return transfer;
+    }
+
+    private void drop(int key) {
+        Transfer transfer = transfers.remove(key);
+        if (transfer != null) {
+            bufferedBytes -= transfer.length;
+        }
+        droppedCount++;
+    }
+
+    private static class Transfer {
+        final int total;
+        int nextSequence;
+        long lastChunkNanos;
+        byte[] content = new byte[MessageChunker.DEFAULT_CHUNK_SIZE];
+        int length;
+
+        Transfer(int total) {
+            this.total = total;
+        }
+
+        void ensureCapacity(int capacity) {
+            if (capacity > content.length) {
+                content = Arrays.copyOf(content, Math.max(capacity, content.length * 2));
+            }
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.ahmet.eldrctestapplication.communication;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Suppresses motor commands identical to the last one sent.
+ * The last command is still repeated once the keepalive interval passes, so the robot's safety
+ * timeout never expires while the stick is held still or released.
+ * Call {@link #submit} from the input path and {@link #tick()} periodically for the keepalive.
+ * A command the sender could not send is not suppressed: the next submit sends it again and the
+ * next tick retries it.
+ */
+public class MotorCommandCoalescer {
+
+    public static final long DEFAULT_KEEPALIVE_MS = 250;
+
+    public interface CommandSender {
+        // Sends the six speeds and returns the size of the packet in bytes, -1 when nothing was sent
+        int send(int speedFL, int speedFR, int speedRL, int speedRR, int speedML, int speedMR);
+    }
+
+    private final CommandSender sender;
+    private final LongSupplier clock;
+    private final int[] last = new int[6];
+    private volatile long keepaliveNanos;
+    private boolean hasLast;
+    // False while the last command failed to go out
+    private boolean lastSent;
+    private long lastSentNanos;
+    private int lastPacketSize;
+
+    private long sentCount;
+    private long keepaliveCount;
+    private long suppressedCount;
+    private long suppressedBytes;
+
+    public MotorCommandCoalescer(CommandSender sender) {
+        this(DEFAULT_KEEPALIVE_MS, sender);
+    }
+
+    public MotorCommandCoalescer(long keepaliveMs, CommandSender sender) {
+        this(keepaliveMs, sender, System::nanoTime);
+    }
+
+    // Nanosecond clock supplied by tests
+    MotorCommandCoalescer(long keepaliveMs, CommandSender sender, LongSupplier clock) {
+        this.sender = sender;
+        this.clock = clock;
+        this.keepaliveNanos = TimeUnit.MILLISECONDS.toNanos(keepaliveMs);
+    }
+
+    public void setKeepaliveInterval(long keepaliveMs) {
+        this.keepaliveNanos = TimeUnit.MILLISECONDS.toNanos(keepaliveMs);
+    }
+
+    // Sends the command if it differs from the last one or the keepalive is due, returns true when sent
+    public synchronized boolean submit(int speedFL, int speedFR, int speedRL, int speedRR, int speedML, int speedMR) {
+        long now = clock.getAsLong();
+        boolean changed = !hasLast || !lastSent
+                || last[0] != speedFL || last[1] != speedFR || last[2] != speedRL
+                || last[3] != speedRR || last[4] != speedML || last[5] != speedMR;
+        if (!changed && now - lastSentNanos < keepaliveNanos) {
+            suppressedCount++;
+            suppressedBytes += lastPacketSize;
+            return false;
+        }
+        if (!changed) {
+            keepaliveCount++;
+        }
+        last[0] = speedFL;
+        last[1] = speedFR;
+        last[2] = speedRL;
+        last[3] = speedRR;
+        last[4] = speedML;
+        last[5] = speedMR;
+        hasLast = true;
+        return send(now);
+    }
+
+    // Repeats the last command when nothing was sent for a keepalive interval, or it failed to go out
+    public synchronized void tick() {
+        long now = clock.getAsLong();
+        if (!hasLast) {
+            return;
+        }
+        if (lastSent) {
+            if (now - lastSentNanos < keepaliveNanos) {
+                return;
+            }
+            keepaliveCount++;
+        }
+        send(now);
+    }
+
+    // Forgets the last command so the next submit is always sent, e.g. after a reconnect
+    public synchronized void reset() {
+        hasLast = false;
+    }
+
+    public synchronized long getSentCount() {
+        return sentCount;
+    }
+
+    public synchronized long getKeepaliveCount() {
+        return keepaliveCount;
+    }
+
+    public synchronized long getSuppressedCount() {
+        return suppressedCount;
+    }
+
+    public synchronized long getSuppressedBytes() {
+        return suppressedBytes;
+    }
+
+    private boolean send(long now) {
+        int size = sender.send(last[0], last[1], last[2], last[3], last[4], last[5]);
+        lastSent = size >= 0;
+        if (!lastSent) {
+            return false;
+        }
+        lastPacketSize = size;
+        lastSentNanos = now;
+        sentCount++;
+        return true;
+    }
+}
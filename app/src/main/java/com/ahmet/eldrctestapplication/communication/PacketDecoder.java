@@ -0,0 +1,247 @@
+package com.ahmet.eldrctestapplication.communication;
+
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Component;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Index;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Process;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Receiver;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Transmitter;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Incremental decoder for the "NNNTRPCI[a:b:c]" packets built by {@link RobotMessageBuilder}.
+ * Input can be fed in arbitrary pieces: one frame may hold several packets and a packet may be
+ * split across frames. Parser state survives between calls and no objects are created per packet.
+ * Malformed input is dropped and the decoder resynchronizes on the next packet id. A run of bad
+ * input counts as one malformed packet; counting starts again once a packet header parses.
+ * Values must have at least one digit and fit in an int.
+ *
+ * Not thread safe, feed it from a single thread (e.g. the WebSocket read thread).
+ * Packets decoded elsewhere (e.g. by {@link BinaryPacketCodec}) can be passed to
+ * {@link #onPacket} to reach the same handlers.
+ */
+public class PacketDecoder implements PacketHandler {
+
+    public static final int DEFAULT_MAX_PAYLOAD = 64;
+
+    private static final int STATE_ID = 0;
+    private static final int STATE_HEADER = 1;
+    private static final int STATE_OPEN = 2;
+    private static final int STATE_VALUE_START = 3;
+    private static final int STATE_VALUE = 4;
+    private static final int STATE_SIGN = 5;
+
+    private static final int ID_LENGTH = 3;
+    private static final int HEADER_LENGTH = 5;
+
+    private volatile PacketHandler[] handlers = new PacketHandler[0];
+
+    private final int[] payload;
+    private int payloadLength;
+
+    private int state = STATE_ID;
+    private int count;
+    private int packetId;
+    private Transmitter transmitter;
+    private Receiver receiver;
+    private Process process;
+    private Component component;
+    private Index index;
+    private long value;
+    private boolean negative;
+    // Set after malformed input until the next header parses, so garbage is counted once
+    private boolean discarding;
+
+    private long packetCount;
+    private long malformedCount;
+
+    public PacketDecoder() {
+        this(DEFAULT_MAX_PAYLOAD);
+    }
+
+    public PacketDecoder(int maxPayload) {
+        this.payload = new int[maxPayload];
+    }
+
+    public synchronized void addHandler(PacketHandler handler) {
+        PacketHandler[] current = handlers;
+        PacketHandler[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = handler;
+        handlers = updated;
+    }
+
+    public synchronized void removeHandler(PacketHandler handler) {
+        PacketHandler[] current = handlers;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == handler) {
+                PacketHandler[] updated = new PacketHandler[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                handlers = updated;
+                return;
+            }
+        }
+    }
+
+    public void feed(CharSequence text) {
+        for (int i = 0, n = text.length(); i < n; i++) {
+            feed(text.charAt(i));
+        }
+    }
+
+    // Reads the ASCII bytes between position and limit, the buffer position is left untouched
+    public void feed(ByteBuffer bytes) {
+        for (int i = bytes.position(), n = bytes.limit(); i < n; i++) {
+            feed((char) (bytes.get(i) & 0xFF));
+        }
+    }
+
+    public void feed(char c) {
+        switch (state) {
+            case STATE_ID:
+                if (c >= '0' && c <= '9') {
+                    packetId = packetId * 10 + (c - '0');
+                    if (++count == ID_LENGTH) {
+                        state = STATE_HEADER;
+                        count = 0;
+                    }
+                } else if (count > 0 || !isSeparator(c)) {
+                    malformed(c);
+                }
+                break;
+            case STATE_HEADER:
+                if (!readHeader(c)) {
+                    malformed(c);
+                } else if (++count == HEADER_LENGTH) {
+                    state = STATE_OPEN;
+                    discarding = false;
+                }
+                break;
+            case STATE_OPEN:
+                if (c == '[') {
+                    state = STATE_VALUE_START;
+                } else {
+                    malformed(c);
+                }
+                break;
+            case STATE_VALUE_START:
+                if (c == ']' && payloadLength == 0) {
+                    dispatch();
+                } else if (c == '-') {
+                    negative = true;
+                    state = STATE_SIGN;
+                } else if (c >= '0' && c <= '9') {
+                    value = c - '0';
+                    state = STATE_VALUE;
+                } else {
+                    malformed(c);
+                }
+                break;
+            case STATE_SIGN:
+                if (c >= '0' && c <= '9') {
+                    value = c - '0';
+                    state = STATE_VALUE;
+                } else {
+                    malformed(c);
+                }
+                break;
+            case STATE_VALUE:
+                if (c >= '0' && c <= '9') {
+                    value = value * 10 + (c - '0');
+                    // Integer.MIN_VALUE has one more magnitude than MAX_VALUE
+                    if (value > (negative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE)) {
+                        malformed(c);
+                    }
+                } else if (c == ':' || c == ']') {
+                    if (payloadLength == payload.length) {
+                        malformed(c);
+                        break;
+                    }
+                    payload[payloadLength++] = (int) (negative ? -value : value);
+                    value = 0;
+                    negative = false;
+                    if (c == ']') {
+                        dispatch();
+                    } else {
+                        state = STATE_VALUE_START;
+                    }
+                } else {
+                    malformed(c);
+                }
+                break;
+        }
+    }
+
+    // Drops any partially received packet, e.g. after the connection was reopened
+    public void reset() {
+        state = STATE_ID;
+        count = 0;
+        packetId = 0;
+        payloadLength = 0;
+        value = 0;
+        negative = false;
+        discarding = false;
+    }
+
+    // True while a packet has been started but not yet closed with ']'
+    public boolean hasPartialPacket() {
+        return state != STATE_ID || count > 0;
+    }
+
+    public long getPacketCount() {
+        return packetCount;
+    }
+
+    public long getMalformedCount() {
+        return malformedCount;
+    }
+
+    private boolean readHeader(char c) {
+        switch (count) {
+            case 0:
+                return (transmitter = Transmitter.fromId(c)) != null;
+            case 1:
+                return (receiver = Receiver.fromId(c)) != null;
+            case 2:
+                return (process = Process.fromCode(c)) != null;
+            case 3:
+                return (component = Component.fromCode(c)) != null;
+            default:
+                return (index = Index.fromCode(c)) != null;
+        }
+    }
+
+    // Hands a decoded packet to every registered handler
+    @Override
+    public void onPacket(int packetId, Transmitter transmitter, Receiver receiver, Process process,
+                         Component component, Index index, int[] payload, int length) {
+        packetCount++;
+        PacketHandler[] current = handlers;
+        for (PacketHandler handler : current) {
+            handler.onPacket(packetId, transmitter, receiver, process, component, index, payload, length);
+        }
+    }
+
+    private void dispatch() {
+        onPacket(packetId, transmitter, receiver, process, component, index, payload, payloadLength);
+        reset();
+    }
+
+    // Drops the current packet; a digit may be the start of the next one
+    private void malformed(char c) {
+        if (!discarding) {
+            malformedCount++;
+        }
+        reset();
+        discarding = true;
+        if (c >= '0' && c <= '9') {
+            feed(c);
+        }
+    }
+
+    // Whitespace and line breaks are allowed between packets
+    private static boolean isSeparator(char c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t';
+    }
+}
@@ -0,0 +1,191 @@
+package com.ahmet.eldrctestapplication.communication;
+
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Component;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Index;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Process;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Receiver;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Transmitter;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Allocation free counterpart of {@link RobotMessageBuilder}.
+ * Writes the same ASCII packets straight into a caller supplied or pooled {@link ByteBuffer}.
+ * Every encode method writes at the buffer position and returns the number of bytes written.
+ * Only the encoding is allocation free; sending the buffer still allocates a frame in Java-WebSocket.
+ */
+public final class PacketEncoder {
+
+    // Largest packet a pooled buffer has to hold
+    public static final int MAX_PACKET_SIZE = 256;
+    private static final int POOL_SIZE = 16;
+
+    private static final AtomicReferenceArray<ByteBuffer> pool = new AtomicReferenceArray<>(POOL_SIZE);
+
+    private PacketEncoder() {
+    }
+
+    // Takes a cleared buffer from the pool, allocating only when the pool is empty
+    public static ByteBuffer acquire() {
+        for (int i = 0; i < POOL_SIZE; i++) {
+            ByteBuffer buffer = pool.getAndSet(i, null);
+            if (buffer != null) {
+                buffer.clear();
+                return buffer;
+            }
+        }
+        return ByteBuffer.allocate(MAX_PACKET_SIZE);
+    }
+
+    // Returns a buffer to the pool, extra buffers are left to the GC
+    public static void release(ByteBuffer buffer) {
+        if (buffer == null || buffer.capacity() < MAX_PACKET_SIZE) {
+            return;
+        }
+        for (int i = 0; i < POOL_SIZE; i++) {
+            if (pool.compareAndSet(i, null, buffer)) {
+                return;
+            }
+        }
+    }
+
+    // Generic packet, same layout as RobotMessageBuilder.buildPacket
+    public static int encode(ByteBuffer dst, Transmitter transmitter, Receiver receiver, Process process,
+                             Component component, Index index, int[] data) {
+        int start = dst.position();
+        putHeader(dst, transmitter, receiver, process, component, index);
+        for (int i = 0; i < data.length; i++) {
+            if (i > 0) {
+                dst.put((byte) ':');
+            }
+            putInt(dst, data[i]);
+        }
+        dst.put((byte) ']');
+        return dst.position() - start;
+    }
+
+    // Motor speeds without the intermediate int[]
+    public static int encodeMotorSpeed(ByteBuffer dst, Transmitter transmitter, Receiver receiver, Component component,
+                                       int speedFL, int speedFR, int speedRL, int speedRR, int speedML, int speedMR) {
+        int start = dst.position();
+        putHeader(dst, transmitter, receiver, Process.WRITE, component, Index.ALL);
+        putInt(dst, speedFL);
+        dst.put((byte) ':');
+        putInt(dst, speedFR);
+        dst.put((byte) ':');
+        putInt(dst, speedRL);
+        dst.put((byte) ':');
+        putInt(dst, speedRR);
+        dst.put((byte) ':');
+        putInt(dst, speedML);
+        dst.put((byte) ':');
+        putInt(dst, speedMR);
+        dst.put((byte) ']');
+        return dst.position() - start;
+    }
+
+    public static int encodeWrite(ByteBuffer dst, Transmitter transmitter, Receiver receiver, Component component,
+                                  Index index, int parameter, int value) {
+        return encodeWrite(dst, RobotMessageBuilder.nextPacketId(receiver), transmitter, receiver, component,
+                index, parameter, value);
+    }
+
+    // Variant with a caller chosen packet id, used when the reply has to be matched to the request
+    public static int encodeWrite(ByteBuffer dst, int packetId, Transmitter transmitter, Receiver receiver,
+                                  Component component, Index index, int parameter, int value) {
+        int start = dst.position();
+        putHeader(dst, packetId, transmitter, receiver, Process.WRITE, component, index);
+        putInt(dst, parameter);
+        dst.put((byte) ':');
+        putInt(dst, value);
+        dst.put((byte) ']');
+        return dst.position() - start;
+    }
+
+    public static int encodeRead(ByteBuffer dst, Transmitter transmitter, Receiver receiver, Component component,
+                                 Index index, int parameter) {
+        return encodeRead(dst, RobotMessageBuilder.nextPacketId(receiver), transmitter, receiver, component,
+                index, parameter);
+    }
+
+    public static int encodeRead(ByteBuffer dst, int packetId, Transmitter transmitter, Receiver receiver,
+                                 Component component, Index index, int parameter) {
+        int start = dst.position();
+        putHeader(dst, packetId, transmitter, receiver, Process.READ, component, index);
+        putInt(dst, parameter);
+        dst.put((byte) ']');
+        return dst.position() - start;
+    }
+
+    public static int encodeAck(ByteBuffer dst, Transmitter transmitter, Receiver receiver, Component component,
+                                Index index, int parameter, int errorCode) {
+        return encodePair(dst, RobotMessageBuilder.nextPacketId(receiver), transmitter, receiver, Process.ACK,
+                component, index, parameter, errorCode);
+    }
+
+    // Replies carry the id of the request they answer
+    public static int encodeAck(ByteBuffer dst, int packetId, Transmitter transmitter, Receiver receiver,
+                                Component component, Index index, int parameter, int errorCode) {
+        return encodePair(dst, packetId, transmitter, receiver, Process.ACK, component, index, parameter, errorCode);
+    }
+
+    public static int encodeAnswer(ByteBuffer dst, Transmitter transmitter, Receiver receiver, Component component,
+                                   Index index, int parameter, int value) {
+        return encodePair(dst, RobotMessageBuilder.nextPacketId(receiver), transmitter, receiver, Process.ANSWER,
+                component, index, parameter, value);
+    }
+
+    public static int encodeAnswer(ByteBuffer dst, int packetId, Transmitter transmitter, Receiver receiver,
+                                   Component component, Index index, int parameter, int value) {
+        return encodePair(dst, packetId, transmitter, receiver, Process.ANSWER, component, index, parameter, value);
+    }
+
+    private static int encodePair(ByteBuffer dst, int packetId, Transmitter transmitter, Receiver receiver,
+                                  Process process, Component component, Index index, int first, int second) {
+        int start = dst.position();
+        putHeader(dst, packetId, transmitter, receiver, process, component, index);
+        putInt(dst, first);
+        dst.put((byte) ':');
+        putInt(dst, second);
+        dst.put((byte) ']');
+        return dst.position() - start;
+    }
+
+    // Writes "NNNTRPCI[" using the shared packet id counter
+    private static void putHeader(ByteBuffer dst, Transmitter transmitter, Receiver receiver, Process process,
+                                  Component component, Index index) {
+        putHeader(dst, RobotMessageBuilder.nextPacketId(receiver), transmitter, receiver, process, component, index);
+    }
+
+    private static void putHeader(ByteBuffer dst, int packetId, Transmitter transmitter, Receiver receiver,
+                                  Process process, Component component, Index index) {
+        PacketIdSequencer.put(dst, packetId);
+        HeaderCache.put(dst, transmitter, receiver, process, component, index);
+    }
+
+    // Writes a decimal int as ASCII without going through String.
+    // Digits are taken from the negated value so Integer.MIN_VALUE needs no special case.
+    static void putInt(ByteBuffer dst, int value) {
+        int negated = value;
+        if (value < 0) {
+            dst.put((byte) '-');
+        } else {
+            negated = -value;
+        }
+        int digits = 1;
+        for (int v = negated; v <= -10; v /= 10) {
+            digits++;
+        }
+        int end = dst.position() + digits;
+        if (end > dst.limit()) {
+            throw new BufferOverflowException();
+        }
+        for (int i = end - 1; i >= end - digits; i--) {
+            dst.put(i, (byte) ('0' - negated % 10));
+            negated /= 10;
+        }
+        dst.position(end);
+    }
+}
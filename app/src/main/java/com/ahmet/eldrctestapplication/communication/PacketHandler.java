@@ -0,0 +1,18 @@
+package com.ahmet.eldrctestapplication.communication;
+
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Component;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Index;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Process;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Receiver;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Transmitter;
+
+/**
+ * Receives packets decoded by {@link PacketDecoder}.
+ * The payload array is reused by the decoder, only the first {@code length} values are valid
+ * and they must be copied if they are needed after the call returns.
+ */
+public interface PacketHandler {
+
+    void onPacket(int packetId, Transmitter transmitter, Receiver receiver, Process process,
+                  Component component, Index index, int[] payload, int length);
+}
@@ -0,0 +1,78 @@
+package com.ahmet.eldrctestapplication.communication;
+
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Receiver;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread safe packet id source producing ids in the range 1..999.
+ * Each id is taken with a single atomic increment, so concurrent callers never retry or block.
+ * Optionally every {@link Receiver} gets its own sequence so ids only repeat per receiver.
+ * The three digit text of every id is precomputed instead of formatted per call.
+ */
+public class PacketIdSequencer {
+
+    public static final int MIN_ID = 1;
+    public static final int MAX_ID = 999;
+    public static final int ID_LENGTH = 3;
+
+    private static final String[] ID_TEXT = new String[MAX_ID + 1];
+    private static final byte[] ID_BYTES = new byte[(MAX_ID + 1) * ID_LENGTH];
+
+    static {
+        for (int id = 0; id <= MAX_ID; id++) {
+            ID_BYTES[id * ID_LENGTH] = (byte) ('0' + id / 100);
+            ID_BYTES[id * ID_LENGTH + 1] = (byte) ('0' + id / 10 % 10);
+            ID_BYTES[id * ID_LENGTH + 2] = (byte) ('0' + id % 10);
+            ID_TEXT[id] = new String(ID_BYTES, id * ID_LENGTH, ID_LENGTH, StandardCharsets.US_ASCII);
+        }
+    }
+
+    private final AtomicInteger sharedCounter = new AtomicInteger();
+    private final AtomicInteger[] receiverCounters = new AtomicInteger[Receiver.values().length];
+    private volatile boolean perReceiver;
+
+    public PacketIdSequencer() {
+        this(false);
+    }
+
+    public PacketIdSequencer(boolean perReceiver) {
+        this(perReceiver, 0);
+    }
+
+    // Raw counters start at the given value, lets tests reach the int overflow
+    PacketIdSequencer(boolean perReceiver, int start) {
+        this.perReceiver = perReceiver;
+        sharedCounter.set(start);
+        for (int i = 0; i < receiverCounters.length; i++) {
+            receiverCounters[i] = new AtomicInteger(start);
+        }
+    }
+
+    // When enabled each receiver counts 1..999 on its own
+    public void setPerReceiver(boolean perReceiver) {
+        this.perReceiver = perReceiver;
+    }
+
+    public boolean isPerReceiver() {
+        return perReceiver;
+    }
+
+    public int next(Receiver receiver) {
+        AtomicInteger counter = perReceiver ? receiverCounters[receiver.ordinal()] : sharedCounter;
+        // Masking keeps the id in range when the raw counter wraps past Integer.MAX_VALUE
+        return (counter.getAndIncrement() & Integer.MAX_VALUE) % MAX_ID + MIN_ID;
+    }
+
+    // Zero padded three digit text of an id, e.g. "007"
+    public static String format(int id) {
+        return ID_TEXT[id];
+    }
+
+    // Writes the three ASCII digits of an id at the buffer position
+    public static void put(ByteBuffer dst, int id) {
+        dst.put(ID_BYTES, id * ID_LENGTH, ID_LENGTH);
+    }
+}
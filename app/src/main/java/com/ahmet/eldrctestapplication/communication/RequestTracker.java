@@ -0,0 +1,243 @@
+package com.ahmet.eldrctestapplication.communication;
+
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Component;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Index;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Process;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Receiver;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Transmitter;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Ties READ and WRITE requests to their ANSWER and ACK replies.
+ * Pending requests are keyed by receiver and packet id, so any number of requests can be in flight
+ * over the single socket. Every request carries its own timeout. A reply only completes the request
+ * when its process, component, index and parameter match as well; a stale reply to an earlier
+ * request with the same id is ignored and counted.
+ *
+ * The sender throws when the packet can't be sent, e.g. the socket is closed; the request then
+ * fails right away instead of waiting out its timeout.
+ *
+ * Register the tracker as a {@link PacketHandler} on the decoder of the same connection.
+ */
+public class RequestTracker implements PacketHandler {
+
+    public static final long DEFAULT_TIMEOUT_MS = 500;
+
+    public interface ReplyListener {
+        // Called on the read thread for every request completed by its reply, elapsed since read() or write()
+        void onReply(int packetId, long elapsedNanos);
+    }
+
+    // Tries before giving up when every candidate id for a receiver is still pending
+    private static final int MAX_ID_ATTEMPTS = 8;
+
+    private final ConcurrentHashMap<Integer, PendingRequest> pending = new ConcurrentHashMap<>();
+    private final AtomicLong mismatchedCount = new AtomicLong();
+    private final Consumer<ByteBuffer> sender;
+    private final ScheduledExecutorService scheduler;
+    private final Transmitter transmitter;
+    private volatile long timeoutMs = DEFAULT_TIMEOUT_MS;
+    private volatile ReplyListener replyListener;
+
+    public RequestTracker(Transmitter transmitter, Consumer<ByteBuffer> sender, ScheduledExecutorService scheduler) {
+        this.transmitter = transmitter;
+        this.sender = sender;
+        this.scheduler = scheduler;
+    }
+
+    public void setTimeout(long timeout, TimeUnit unit) {
+        this.timeoutMs = unit.toMillis(timeout);
+    }
+
+    public void setReplyListener(ReplyListener listener) {
+        this.replyListener = listener;
+    }
+
+    // Completes with the value from the ANSWER packet
+    public CompletableFuture<Integer> read(Receiver receiver, Component component, Index index, int parameter) {
+        return read(receiver, component, index, parameter, timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    public CompletableFuture<Integer> read(Receiver receiver, Component component, Index index, int parameter,
+                                          long timeout, TimeUnit unit) {
+        PendingRequest request = register(receiver, Process.ANSWER, component, index, parameter, timeout, unit);
+        if (request.key < 0) {
+            return request.future;
+        }
+        ByteBuffer buffer = PacketEncoder.acquire();
+        try {
+            PacketEncoder.encodeRead(buffer, packetId(request.key), transmitter, receiver, component, index, parameter);
+            buffer.flip();
+            sender.accept(buffer);
+        } catch (RuntimeException e) {
+            fail(request, e);
+        } finally {
+            PacketEncoder.release(buffer);
+        }
+        return request.future;
+    }
+
+    // Completes with the error code from the ACK packet, 0 means success
+    public CompletableFuture<Integer> write(Receiver receiver, Component component, Index index,
+                                           int parameter, int value) {
+        return write(receiver, component, index, parameter, value, timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    public CompletableFuture<Integer> write(Receiver receiver, Component component, Index index,
+                                           int parameter, int value, long timeout, TimeUnit unit) {
+        PendingRequest request = register(receiver, Process.ACK, component, index, parameter, timeout, unit);
+        if (request.key < 0) {
+            return request.future;
+        }
+        ByteBuffer buffer = PacketEncoder.acquire();
+        try {
+            PacketEncoder.encodeWrite(buffer, packetId(request.key), transmitter, receiver, component, index,
+                    parameter, value);
+            buffer.flip();
+            sender.accept(buffer);
+        } catch (RuntimeException e) {
+            fail(request, e);
+        } finally {
+            PacketEncoder.release(buffer);
+        }
+        return request.future;
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    // Replies whose id matched a pending request but whose contents belong to a different one
+    public long getMismatchedCount() {
+        return mismatchedCount.get();
+    }
+
+    // Fails every outstanding request, e.g. when the connection closes
+    public void failAll(Throwable cause) {
+        Iterator<PendingRequest> iterator = pending.values().iterator();
+        while (iterator.hasNext()) {
+            PendingRequest request = iterator.next();
+            iterator.remove();
+            request.complete(null, cause);
+        }
+    }
+
+    @Override
+    public void onPacket(int packetId, Transmitter transmitter, Receiver receiver, Process process,
+                         Component component, Index index, int[] payload, int length) {
+        if (process != Process.ANSWER && process != Process.ACK) {
+            return;
+        }
+        // Replies come from the node the request was addressed to, or answer a broadcast
+        PendingRequest request = claim(key(transmitter.getId(), packetId), process, component, index, payload, length);
+        if (request == null) {
+            request = claim(key(Receiver.ALL.getId(), packetId), process, component, index, payload, length);
+        }
+        if (request == null) {
+            return;
+        }
+        if (length < 2) {
+            request.complete(null, new IllegalStateException("Reply without value for packet " + packetId));
+        } else {
+            request.complete(payload[1], null);
+            ReplyListener listener = replyListener;
+            if (listener != null) {
+                listener.onReply(packetId, System.nanoTime() - request.startNanos);
+            }
+        }
+    }
+
+    // Removes and returns the request under the key if the reply is for it
+    private PendingRequest claim(int key, Process process, Component component, Index index, int[] payload, int length) {
+        PendingRequest request = pending.get(key);
+        if (request == null) {
+            return null;
+        }
+        if (!request.matches(process, component, index, payload, length)) {
+            mismatchedCount.incrementAndGet();
+            return null;
+        }
+        return pending.remove(key, request) ? request : null;
+    }
+
+    private PendingRequest register(Receiver receiver, Process reply, Component component, Index index, int parameter,
+                                    long timeout, TimeUnit unit) {
+        for (int attempt = 0; attempt < MAX_ID_ATTEMPTS; attempt++) {
+            int key = key(receiver.getId(), RobotMessageBuilder.nextPacketId(receiver));
+            PendingRequest request = new PendingRequest(key, reply, component, index, parameter);
+            if (pending.putIfAbsent(key, request) == null) {
+                request.timeout = scheduler.schedule(() -> {
+                    if (pending.remove(key, request)) {
+                        request.complete(null, new TimeoutException("No reply for packet " + packetId(key)));
+                    }
+                }, timeout, unit);
+                return request;
+            }
+        }
+        PendingRequest rejected = new PendingRequest(-1, reply, component, index, parameter);
+        rejected.future.completeExceptionally(new IllegalStateException("Too many pending requests for " + receiver));
+        return rejected;
+    }
+
+    private void fail(PendingRequest request, Throwable cause) {
+        if (pending.remove(request.key, request)) {
+            request.complete(null, cause);
+        }
+    }
+
+    private static int key(char receiverId, int packetId) {
+        return receiverId << 16 | packetId;
+    }
+
+    private static int packetId(int key) {
+        return key & 0xFFFF;
+    }
+
+    private static class PendingRequest {
+        final int key;
+        // What the reply has to carry: ANSWER or ACK, the requested component, index and parameter
+        final Process reply;
+        final Component component;
+        final Index index;
+        final int parameter;
+        final CompletableFuture<Integer> future = new CompletableFuture<>();
+        final long startNanos = System.nanoTime();
+        volatile ScheduledFuture<?> timeout;
+
+        PendingRequest(int key, Process reply, Component component, Index index, int parameter) {
+            this.key = key;
+            this.reply = reply;
+            this.component = component;
+            this.index = index;
+            this.parameter = parameter;
+        }
+
+        // A reply without payload still matches, it completes the request with an error
+        boolean matches(Process process, Component component, Index index, int[] payload, int length) {
+            return process == reply && component == this.component && index == this.index
+                    && (length < 1 || payload[0] == parameter);
+        }
+
+        void complete(Integer value, Throwable cause) {
+            ScheduledFuture<?> timer = timeout;
+            if (timer != null) {
+                timer.cancel(false);
+            }
+            if (cause != null) {
+                future.completeExceptionally(cause);
+            } else {
+                future.complete(value);
+            }
+        }
+    }
+}
@@ -6,7 +6,9 @@ package com.ahmet.eldrctestapplication.communication;
  */
 public class RobotMessageBuilder {
 
-    private static int packetId = 1;
+    private static final PacketIdSequencer sequencer = new PacketIdSequencer();
+    // Fits a six motor packet without the StringBuilder growing
+    private static final int PACKET_CAPACITY = 64;
 
     // Enum for Transmitter IDs
     public enum Transmitter {
@@ -17,6 +19,16 @@ public class RobotMessageBuilder {
         private final char id;
         Transmitter(char id) { this.id = id; }
         public char getId() { return id; }
+
+        private static final Transmitter[] BY_ID = new Transmitter[128];
+        static {
+            for (Transmitter value : values()) BY_ID[value.id] = value;
+        }
+
+        // Reverse lookup, null when the char is not a known id
+        public static Transmitter fromId(char id) {
+            return id < 128 ? BY_ID[id] : null;
+        }
     }
 
     // Enum for Receiver IDs
@@ -29,6 +41,16 @@ public class RobotMessageBuilder {
         private final char id;
         Receiver(char id) { this.id = id; }
         public char getId() { return id; }
+
+        private static final Receiver[] BY_ID = new Receiver[128];
+        static {
+            for (Receiver value : values()) BY_ID[value.id] = value;
+        }
+
+        // Reverse lookup, null when the char is not a known id
+        public static Receiver fromId(char id) {
+            return id < 128 ? BY_ID[id] : null;
+        }
     }
 
     // Enum for Process Types
@@ -42,6 +64,16 @@ public class RobotMessageBuilder {
         private final char code;
         Process(char code) { this.code = code; }
         public char getCode() { return code; }
+
+        private static final Process[] BY_CODE = new Process[128];
+        static {
+            for (Process value : values()) BY_CODE[value.code] = value;
+        }
+
+        // Reverse lookup, null when the char is not a known code
+        public static Process fromCode(char code) {
+            return code < 128 ? BY_CODE[code] : null;
+        }
     }
 
     // Enum for Components
@@ -60,6 +92,16 @@ public class RobotMessageBuilder {
         private final char code;
         Component(char code) { this.code = code; }
         public char getCode() { return code; }
+
+        private static final Component[] BY_CODE = new Component[128];
+        static {
+            for (Component value : values()) BY_CODE[value.code] = value;
+        }
+
+        // Reverse lookup, null when the char is not a known code
+        public static Component fromCode(char code) {
+            return code < 128 ? BY_CODE[code] : null;
+        }
     }
 
     // Enum for Indexes
@@ -71,14 +113,30 @@ public class RobotMessageBuilder {
         private final char code;
         Index(char code) { this.code = code; }
         public char getCode() { return code; }
-    }
 
-    // Packet ID generation
-    private static String getPacketId() {
-        if (packetId > 999) {
-            packetId = 1;
+        private static final Index[] BY_CODE = new Index[128];
+        static {
+            for (Index value : values()) BY_CODE[value.code] = value;
+        }
+
+        // Reverse lookup, null when the char is not a known code
+        public static Index fromCode(char code) {
+            return code < 128 ? BY_CODE[code] : null;
         }
-        return String.format("%03d", packetId++);
+    }
+
+    // Packet ID generation, safe to call from any thread
+    static int nextPacketId(Receiver receiver) {
+        return sequencer.next(receiver);
+    }
+
+    private static String getPacketId(Receiver receiver) {
+        return PacketIdSequencer.format(nextPacketId(receiver));
+    }
+
+    // Shared id source, e.g. to switch on per receiver sequences
+    public static PacketIdSequencer getSequencer() {
+        return sequencer;
     }
 
     // Builds packet according to protocol with specified parameters
@@ -86,18 +144,17 @@ public class RobotMessageBuilder {
             Transmitter transmitter, Receiver receiver, Process process,
             Component component, Index index, int[] data) {
 
-        String packetIdStr = getPacketId();
-        StringBuilder packet = new StringBuilder(packetIdStr)
-                .append(transmitter.getId()).append(receiver.getId()).append(process.getCode())
-                .append(component.getCode()).append(index.getCode()).append("[");
+        String packetIdStr = getPacketId(receiver);
+        StringBuilder packet = new StringBuilder(PACKET_CAPACITY).append(packetIdStr)
+                .append(HeaderCache.text(transmitter, receiver, process, component, index));
 
         for (int i = 0; i < data.length; i++) {
             packet.append(data[i]);
             if (i < data.length - 1) {
-                packet.append(":");
+                packet.append(':');
             }
         }
-        packet.append("]");
+        packet.append(']');
         return packet.toString();
     }
 
@@ -143,7 +200,9 @@ public class RobotMessageBuilder {
             Transmitter transmitter, Receiver receiver, Component component,
             Index index, int parameter, String message) {
 
-        int[] messageData = new int[]{parameter}; // Modify to encode message as data if needed
+        // A single packet with the parameter only, the text is not carried. Content is sent in chunks
+        // with MessageChunker (WebSocketManager.sendContent).
+        int[] messageData = new int[]{parameter};
         return buildPacket(transmitter, receiver, Process.MESSAGE, component, index, messageData);
     }
 }
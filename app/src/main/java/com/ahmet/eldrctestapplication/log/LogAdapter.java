@@ -3,6 +3,7 @@ package com.ahmet.eldrctestapplication.log;
 import android.content.Context;
 import android.os.Handler;
 import android.os.Looper;
+import android.view.Choreographer;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -15,12 +16,22 @@ import androidx.annotation.Nullable;
 
 import com.ahmet.eldrctestapplication.R;
 
+import java.text.SimpleDateFormat;
+import java.util.Date;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Adapter for displaying log entries in a ListView.
+ * log() can be called from any thread and only appends to a lock-free staging queue. The queue is
+ * drained on the main thread once per display frame, with one notify and one scroll for all entries
+ * that arrived during the frame, however high the log rate is. Entries are pooled and stay
+ * unformatted until getView shows them, rows that scroll out of the buffer unseen are never rendered.
  * @author Ahmet TOPAK
- * @version 1.2
+ * @version 1.3
  * @since 7/23/2024
  */
 
@@ -30,6 +41,29 @@ public class LogAdapter extends ArrayAdapter<LogEntry> {
     private final Handler mainHandler;
     private final LayoutInflater inflater;
     private final ListView listView; // Add this line to hold a reference to the ListView
+    private final Choreographer choreographer;
+    private final ConcurrentLinkedQueue<LogEntry> staged = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+    private final Choreographer.FrameCallback drainCallback = frameTimeNanos -> drain();
+    private final Runnable drainTask = this::drain;
+    // Row rendering, only used on the main thread
+    private final SimpleDateFormat timeFormat = new SimpleDateFormat("HH:mm:ss.SSS", Locale.US);
+    private final Date date = new Date();
+    // Optional persistent copy of every entry
+    private volatile SessionLogWriter sessionLog;
+    // Delivery as it was before frame batching, only to measure it (see setPerEntryDelivery)
+    private volatile boolean perEntryDelivery;
+
+    // Main thread time spent per drain, only touched on the main thread
+    private long drainCount;
+    private long drainedEntries;
+    private long totalDrainNanos;
+    private long maxDrainNanos;
+
+    // Keeps only the newest capacity entries so memory stays flat during long sessions
+    public LogAdapter(@NonNull Context context, int capacity, ListView listView) {
+        this(context, new LogRingBuffer(capacity), listView);
+    }
 
     public LogAdapter(@NonNull Context context, List<LogEntry> logList, ListView listView) {
         super(context, R.layout.simple_list_item, logList);
@@ -37,18 +71,95 @@ public class LogAdapter extends ArrayAdapter<LogEntry> {
         this.mainHandler = new Handler(Looper.getMainLooper());
         this.inflater = LayoutInflater.from(context);
         this.listView = listView;  // Initialize the ListView reference
+        // Created on the main thread, null where there is no looper (plain JVM tests)
+        this.choreographer = Looper.myLooper() == Looper.getMainLooper() ? Choreographer.getInstance() : null;
     }
 
     public void log(final LogEntry.LogType type, final String message) {
-        mainHandler.post(() -> {
-            logList.add(new LogEntry(type, message));
-            notifyDataSetChanged();
+        log(LogEntry.obtain(type, null, message));
+    }
 
-            // Scroll to the bottom of the ListView
-            if (listView != null) {
-                listView.postDelayed(() -> listView.setSelection(logList.size() - 1), 100);
+    // Takes over the caller's reference, e.g. of an entry from LogEntry.obtain with numeric fields set
+    public void log(LogEntry entry) {
+        SessionLogWriter writer = sessionLog;
+        if (writer != null) {
+            writer.append(entry);
+        }
+        if (perEntryDelivery) {
+            mainHandler.post(() -> deliver(entry));
+            return;
+        }
+        staged.add(entry);
+        if (drainScheduled.compareAndSet(false, true)) {
+            if (choreographer != null) {
+                choreographer.postFrameCallback(drainCallback);
+            } else {
+                mainHandler.post(drainTask);
             }
-        });
+        }
+    }
+
+    // Off by default. When on, every entry gets its own main thread post with a notify and a delayed
+    // scroll, as log() worked before frame batching, and is counted like a drain of one entry, so
+    // getDrainStats() gives the before and after numbers on the same device. Set it before logging starts.
+    public void setPerEntryDelivery(boolean perEntryDelivery) {
+        this.perEntryDelivery = perEntryDelivery;
+    }
+
+    // Entries logged from now on are also persisted by the writer, null stops persisting
+    public void setSessionLog(SessionLogWriter sessionLog) {
+        this.sessionLog = sessionLog;
+    }
+
+    // Moves everything staged into the list, runs on the main thread at most once per frame
+    private void drain() {
+        long start = System.nanoTime();
+        // Cleared first so an entry staged while draining schedules the next frame
+        drainScheduled.set(false);
+        int count = 0;
+        LogEntry entry;
+        while ((entry = staged.poll()) != null) {
+            logList.add(entry);
+            count++;
+        }
+        if (count == 0) {
+            return;
+        }
+        notifyDataSetChanged();
+
+        // Scroll to the bottom of the ListView
+        if (listView != null) {
+            listView.setSelection(logList.size() - 1);
+        }
+        recordDrain(start, count);
+    }
+
+    private void deliver(LogEntry entry) {
+        long start = System.nanoTime();
+        logList.add(entry);
+        notifyDataSetChanged();
+        if (listView != null) {
+            listView.postDelayed(() -> listView.setSelection(logList.size() - 1), 100);
+        }
+        recordDrain(start, 1);
+    }
+
+    private void recordDrain(long start, int count) {
+        long elapsed = System.nanoTime() - start;
+        drainCount++;
+        drainedEntries += count;
+        totalDrainNanos += elapsed;
+        if (elapsed > maxDrainNanos) {
+            maxDrainNanos = elapsed;
+        }
+    }
+
+    // Main thread cost of log delivery in the current mode, call on the main thread.
+    // "drains" counts frames, or entries with per entry delivery.
+    public String getDrainStats() {
+        long meanMicros = drainCount > 0 ? TimeUnit.NANOSECONDS.toMicros(totalDrainNanos / drainCount) : 0;
+        return (perEntryDelivery ? "per entry" : "per frame") + " drains=" + drainCount + " entries=" + drainedEntries
+                + " mean=" + meanMicros + "us max=" + TimeUnit.NANOSECONDS.toMicros(maxDrainNanos) + "us";
     }
 
     @NonNull
@@ -65,17 +176,47 @@ public class LogAdapter extends ArrayAdapter<LogEntry> {
         }
 
         LogEntry logEntry = logList.get(position);
-        holder.textView.setText(logEntry.getMessage());
+        CharSequence text = logEntry.getRendered();
+        if (text == null) {
+            text = render(logEntry);
+            logEntry.setRendered(text);
+        }
+        holder.textView.setText(text);
         holder.textView.setTextColor(getLogColor(logEntry.getType()));
 
         return convertView;
     }
 
+    private CharSequence render(LogEntry entry) {
+        date.setTime(entry.getEpochMillis());
+        StringBuilder builder = new StringBuilder(64).append(timeFormat.format(date)).append(' ');
+        if (entry.getCategory() != null) {
+            builder.append('[').append(entry.getCategory()).append("] ");
+        }
+        builder.append(entry.getMessage());
+        return appendFields(builder, entry).toString();
+    }
+
+    // Appends only the numeric fields that were set
+    static StringBuilder appendFields(StringBuilder builder, LogEntry entry) {
+        if (entry.getPacketId() != LogEntry.NO_PACKET_ID) {
+            builder.append(" id=").append(entry.getPacketId());
+        }
+        if (entry.getRttMicros() != LogEntry.NO_RTT) {
+            builder.append(" rtt=").append(entry.getRttMicros()).append("us");
+        }
+        if (entry.getQueueDepth() != LogEntry.NO_QUEUE_DEPTH) {
+            builder.append(" depth=").append(entry.getQueueDepth());
+        }
+        return builder;
+    }
+
     private int getLogColor(LogEntry.LogType type) {
         switch (type) {
             case ERROR:
                 return getContext().getResources().getColor(android.R.color.holo_red_light);
             case DEBUG:
+            case TRACE:
                 return getContext().getResources().getColor(android.R.color.holo_blue_light);
             case INFO:
             default:
@@ -1,29 +1,194 @@
 package com.ahmet.eldrctestapplication.log;
 
 /**
+ * One log line with its timestamps, the category (logger tag) and optional numeric fields.
+ * Numbers are kept as primitives and only turned into text when the row is shown, see
+ * {@link LogAdapter#getView}. Entries on the logging paths come from a small pool: {@link #obtain}
+ * takes one, every holder calls {@link #retain()} and {@link #release()} and the last release
+ * puts it back, so steady high rate logging reuses the same objects.
+ *
  * @author Ahmet TOPAK
- * @version 1.0
+ * @version 1.1
  * @since 7/23/2024
  */
 
 public class LogEntry {
+    // TRACE is last so the ordinals stored in session log segments keep their meaning
     public enum LogType {
-        INFO, ERROR, DEBUG
+        INFO, ERROR, DEBUG, TRACE
     }
 
+    // Value of the numeric fields that were not set
+    public static final int NO_PACKET_ID = -1;
+    public static final long NO_RTT = -1;
+    public static final int NO_QUEUE_DEPTH = -1;
+
+    private static final int MAX_POOL_SIZE = 512;
+    private static final Object POOL_LOCK = new Object();
+    private static LogEntry pool;
+    private static int poolSize;
+
     private LogType type;
+    private String category;
     private String message;
+    private long epochMillis;
+    private long nanoTime;
+    private int packetId = NO_PACKET_ID;
+    private long rttMicros = NO_RTT;
+    private int queueDepth = NO_QUEUE_DEPTH;
+    // Text built for the list row, kept until the entry is recycled
+    private CharSequence rendered;
+
+    // Holders that still need the entry, guarded by this
+    private int references;
+    private LogEntry next;
 
     public LogEntry(LogType type, String message) {
+        this();
+        set(type, null, message);
+    }
+
+    private LogEntry() {
+        references = 1;
+    }
+
+    // Pooled entry stamped with the current time, the caller holds the only reference
+    public static LogEntry obtain(LogType type, String category, String message) {
+        LogEntry entry = null;
+        synchronized (POOL_LOCK) {
+            if (pool != null) {
+                entry = pool;
+                pool = entry.next;
+                entry.next = null;
+                poolSize--;
+            }
+        }
+        if (entry == null) {
+            entry = new LogEntry();
+        } else {
+            entry.references = 1;
+        }
+        return entry.set(type, category, message);
+    }
+
+    // Entries created outside the pool can also be released, they simply join it
+    public synchronized void retain() {
+        references++;
+    }
+
+    public void release() {
+        synchronized (this) {
+            if (--references > 0) {
+                return;
+            }
+            if (references < 0) {
+                throw new IllegalStateException("LogEntry released more often than retained");
+            }
+            category = null;
+            message = null;
+            rendered = null;
+        }
+        synchronized (POOL_LOCK) {
+            if (poolSize < MAX_POOL_SIZE) {
+                next = pool;
+                pool = this;
+                poolSize++;
+            }
+        }
+    }
+
+    static int getPoolSize() {
+        synchronized (POOL_LOCK) {
+            return poolSize;
+        }
+    }
+
+    private LogEntry set(LogType type, String category, String message) {
         this.type = type;
+        this.category = category;
         this.message = message;
+        this.epochMillis = System.currentTimeMillis();
+        this.nanoTime = System.nanoTime();
+        this.packetId = NO_PACKET_ID;
+        this.rttMicros = NO_RTT;
+        this.queueDepth = NO_QUEUE_DEPTH;
+        this.rendered = null;
+        return this;
+    }
+
+    // Used by SessionLogReader to decode every record into the same instance
+    void set(LogType type, String category, String message, long epochMillis, long nanoTime,
+             int packetId, long rttMicros, int queueDepth) {
+        this.type = type;
+        this.category = category;
+        this.message = message;
+        this.epochMillis = epochMillis;
+        this.nanoTime = nanoTime;
+        this.packetId = packetId;
+        this.rttMicros = rttMicros;
+        this.queueDepth = queueDepth;
+        this.rendered = null;
+    }
+
+    static LogEntry empty() {
+        return new LogEntry();
+    }
+
+    public LogEntry setPacketId(int packetId) {
+        this.packetId = packetId;
+        return this;
+    }
+
+    public LogEntry setRttMicros(long rttMicros) {
+        this.rttMicros = rttMicros;
+        return this;
+    }
+
+    public LogEntry setQueueDepth(int queueDepth) {
+        this.queueDepth = queueDepth;
+        return this;
     }
 
     public LogType getType() {
         return type;
     }
 
+    // Tag of the logger that wrote the entry, null when logged directly
+    public String getCategory() {
+        return category;
+    }
+
     public String getMessage() {
         return message;
     }
+
+    // Wall clock time, for display
+    public long getEpochMillis() {
+        return epochMillis;
+    }
+
+    // Monotonic time, for ordering and intervals between entries
+    public long getNanoTime() {
+        return nanoTime;
+    }
+
+    public int getPacketId() {
+        return packetId;
+    }
+
+    public long getRttMicros() {
+        return rttMicros;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    CharSequence getRendered() {
+        return rendered;
+    }
+
+    void setRendered(CharSequence rendered) {
+        this.rendered = rendered;
+    }
 }
@@ -0,0 +1,103 @@
+package com.ahmet.eldrctestapplication.log;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * Fixed capacity list of log entries; once full, every add overwrites the oldest entry.
+ * Position 0 is always the oldest entry still kept, so an adapter can keep using plain list positions.
+ * Each entry also has a sequence number that never changes, {@link #getSequence(int)} maps a position
+ * to it and {@link #positionOf(long)} back, e.g. to keep a row selected while older rows fall off.
+ *
+ * The buffer owns one reference of every entry it holds and releases it when the entry is overwritten
+ * or cleared, so pooled entries go back to the {@link LogEntry} pool.
+ *
+ * Not thread safe, LogAdapter only touches it on the main thread.
+ */
+public class LogRingBuffer extends AbstractList<LogEntry> implements RandomAccess {
+
+    public static final int DEFAULT_CAPACITY = 2000;
+
+    private final LogEntry[] entries;
+    private int head;
+    private int size;
+    // Entries ever added, the sequence number of the next one
+    private long addedCount;
+    private long overwrittenCount;
+
+    public LogRingBuffer() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public LogRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.entries = new LogEntry[capacity];
+    }
+
+    @Override
+    public boolean add(LogEntry entry) {
+        if (size < entries.length) {
+            entries[(head + size) % entries.length] = entry;
+            size++;
+        } else {
+            LogEntry overwritten = entries[head];
+            entries[head] = entry;
+            head = (head + 1) % entries.length;
+            overwrittenCount++;
+            overwritten.release();
+        }
+        addedCount++;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public LogEntry get(int position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("Position " + position + ", size " + size);
+        }
+        return entries[(head + position) % entries.length];
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            int slot = (head + i) % entries.length;
+            LogEntry entry = entries[slot];
+            entries[slot] = null;
+            entry.release();
+        }
+        head = 0;
+        size = 0;
+        modCount++;
+    }
+
+    public int capacity() {
+        return entries.length;
+    }
+
+    // Entries overwritten because the buffer was full
+    public long getOverwrittenCount() {
+        return overwrittenCount;
+    }
+
+    public long getSequence(int position) {
+        if (position < 0 || position >= size) {
+            throw new IndexOutOfBoundsException("Position " + position + ", size " + size);
+        }
+        return addedCount - size + position;
+    }
+
+    // Current position of the entry with the sequence number, -1 once it was overwritten
+    public int positionOf(long sequence) {
+        long position = sequence - (addedCount - size);
+        return position >= 0 && position < size ? (int) position : -1;
+    }
+}
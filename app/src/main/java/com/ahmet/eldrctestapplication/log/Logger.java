@@ -0,0 +1,208 @@
+package com.ahmet.eldrctestapplication.log;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Level and tag gated front end for a {@link LogAdapter}.
+ * The minimum level and the per tag switches can be changed at runtime. A disabled statement costs
+ * two volatile reads: messages are formatted only after the check, "{}" placeholders are filled from
+ * fixed arity overloads (no varargs array) and long arguments are not boxed, so nothing is allocated
+ * unless the entry is actually logged. Use the Supplier overloads for anything more expensive.
+ * Entries carry the tag as their category and come from the {@link LogEntry} pool.
+ */
+public final class Logger {
+
+    private static final ConcurrentHashMap<String, TagSwitch> TAGS = new ConcurrentHashMap<>();
+    private static volatile int minSeverity = severity(LogEntry.LogType.DEBUG);
+
+    private final LogAdapter adapter;
+    private final TagSwitch tagSwitch;
+
+    public Logger(String tag, LogAdapter adapter) {
+        this.adapter = adapter;
+        this.tagSwitch = TAGS.computeIfAbsent(tag, TagSwitch::new);
+    }
+
+    // Entries below this level are dropped everywhere. DEBUG by default, so the per packet TRACE lines
+    // cost nothing unless asked for
+    public static void setMinLevel(LogEntry.LogType level) {
+        minSeverity = severity(level);
+    }
+
+    // Turns every logger with this tag on or off, also for loggers created later
+    public static void setTagEnabled(String tag, boolean enabled) {
+        TAGS.computeIfAbsent(tag, TagSwitch::new).enabled = enabled;
+    }
+
+    public static boolean isTagEnabled(String tag) {
+        TagSwitch tagSwitch = TAGS.get(tag);
+        return tagSwitch == null || tagSwitch.enabled;
+    }
+
+    public String getTag() {
+        return tagSwitch.tag;
+    }
+
+    public boolean isEnabled(LogEntry.LogType level) {
+        return tagSwitch.enabled && severity(level) >= minSeverity && adapter != null;
+    }
+
+    public boolean isDebugEnabled() {
+        return isEnabled(LogEntry.LogType.DEBUG);
+    }
+
+    public boolean isTraceEnabled() {
+        return isEnabled(LogEntry.LogType.TRACE);
+    }
+
+    public void log(LogEntry.LogType level, String message) {
+        if (isEnabled(level)) {
+            emit(level, message);
+        }
+    }
+
+    public void log(LogEntry.LogType level, String format, Object arg) {
+        if (isEnabled(level)) {
+            emit(level, format(format, arg, null, null, 1));
+        }
+    }
+
+    public void log(LogEntry.LogType level, String format, Object arg1, Object arg2) {
+        if (isEnabled(level)) {
+            emit(level, format(format, arg1, arg2, null, 2));
+        }
+    }
+
+    public void log(LogEntry.LogType level, String format, Object arg1, Object arg2, Object arg3) {
+        if (isEnabled(level)) {
+            emit(level, format(format, arg1, arg2, arg3, 3));
+        }
+    }
+
+    // Primitive overload, the argument is only boxed when the entry is logged
+    public void log(LogEntry.LogType level, String format, long arg) {
+        if (isEnabled(level)) {
+            emit(level, format(format, arg, null, null, 1));
+        }
+    }
+
+    // Structured entry, the numbers stay primitives in the entry and are only formatted when shown.
+    // Pass LogEntry.NO_PACKET_ID, NO_RTT or NO_QUEUE_DEPTH for fields that don't apply.
+    public void log(LogEntry.LogType level, String message, int packetId, long rttMicros, int queueDepth) {
+        if (isEnabled(level)) {
+            adapter.log(LogEntry.obtain(level, tagSwitch.tag, message)
+                    .setPacketId(packetId)
+                    .setRttMicros(rttMicros)
+                    .setQueueDepth(queueDepth));
+        }
+    }
+
+    public void log(LogEntry.LogType level, Supplier<String> message) {
+        if (isEnabled(level)) {
+            emit(level, message.get());
+        }
+    }
+
+    public void trace(String message) {
+        log(LogEntry.LogType.TRACE, message);
+    }
+
+    public void trace(String format, Object arg) {
+        log(LogEntry.LogType.TRACE, format, arg);
+    }
+
+    public void trace(String format, long arg) {
+        log(LogEntry.LogType.TRACE, format, arg);
+    }
+
+    public void debug(String message) {
+        log(LogEntry.LogType.DEBUG, message);
+    }
+
+    public void debug(String format, Object arg) {
+        log(LogEntry.LogType.DEBUG, format, arg);
+    }
+
+    public void debug(String format, Object arg1, Object arg2) {
+        log(LogEntry.LogType.DEBUG, format, arg1, arg2);
+    }
+
+    public void debug(Supplier<String> message) {
+        log(LogEntry.LogType.DEBUG, message);
+    }
+
+    public void info(String message) {
+        log(LogEntry.LogType.INFO, message);
+    }
+
+    public void info(String format, Object arg) {
+        log(LogEntry.LogType.INFO, format, arg);
+    }
+
+    public void info(String format, Object arg1, Object arg2) {
+        log(LogEntry.LogType.INFO, format, arg1, arg2);
+    }
+
+    public void info(String format, Object arg1, Object arg2, Object arg3) {
+        log(LogEntry.LogType.INFO, format, arg1, arg2, arg3);
+    }
+
+    public void info(Supplier<String> message) {
+        log(LogEntry.LogType.INFO, message);
+    }
+
+    public void error(String message) {
+        log(LogEntry.LogType.ERROR, message);
+    }
+
+    public void error(String format, Object arg) {
+        log(LogEntry.LogType.ERROR, format, arg);
+    }
+
+    public void error(String format, Object arg1, Object arg2) {
+        log(LogEntry.LogType.ERROR, format, arg1, arg2);
+    }
+
+    private void emit(LogEntry.LogType level, String message) {
+        adapter.log(LogEntry.obtain(level, tagSwitch.tag, message));
+    }
+
+    // Fills "{}" placeholders in order, extra placeholders are left as they are
+    static String format(String format, Object arg1, Object arg2, Object arg3, int count) {
+        StringBuilder builder = new StringBuilder(format.length() + 32);
+        int start = 0;
+        for (int i = 0; i < count; i++) {
+            int at = format.indexOf("{}", start);
+            if (at < 0) {
+                break;
+            }
+            builder.append(format, start, at).append(i == 0 ? arg1 : i == 1 ? arg2 : arg3);
+            start = at + 2;
+        }
+        return builder.append(format, start, format.length()).toString();
+    }
+
+    // LogType is declared INFO, ERROR, DEBUG so its ordinal is no severity
+    private static int severity(LogEntry.LogType level) {
+        switch (level) {
+            case TRACE:
+                return 0;
+            case DEBUG:
+                return 1;
+            case INFO:
+                return 2;
+            default:
+                return 3;
+        }
+    }
+
+    private static final class TagSwitch {
+        final String tag;
+        volatile boolean enabled = true;
+
+        TagSwitch(String tag) {
+            this.tag = tag;
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.ahmet.eldrctestapplication.log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+/**
+ * Streams the records written by {@link SessionLogWriter} back out, oldest segment first.
+ * Has no Android dependencies: copy the segment directory off the device (e.g. with adb pull) and run
+ * <pre>
+ *   java com.ahmet.eldrctestapplication.log.SessionLogReader &lt;directory or segment file&gt;
+ * </pre>
+ */
+public final class SessionLogReader {
+
+    private static final LogEntry.LogType[] TYPES = LogEntry.LogType.values();
+
+    // The same entry instance is passed for every record, copy out what has to be kept
+    public interface RecordHandler {
+        void onRecord(LogEntry entry);
+    }
+
+    private SessionLogReader() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: SessionLogReader <directory or segment file>");
+            System.exit(1);
+        }
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS", Locale.US);
+        Date date = new Date();
+        long records = read(new File(args[0]), entry -> {
+            date.setTime(entry.getEpochMillis());
+            StringBuilder line = new StringBuilder(format.format(date)).append(' ').append(entry.getNanoTime())
+                    .append(' ').append(entry.getType());
+            if (entry.getCategory() != null) {
+                line.append(" [").append(entry.getCategory()).append(']');
+            }
+            line.append(' ').append(entry.getMessage());
+            LogAdapter.appendFields(line, entry);
+            System.out.println(line);
+        });
+        System.err.println(records + " records");
+    }
+
+    // Reads a whole directory in segment order, or a single segment file; returns the record count
+    public static long read(File source, RecordHandler handler) throws IOException {
+        if (!source.isDirectory()) {
+            return readSegment(source, handler);
+        }
+        long records = 0;
+        for (File segment : SessionLogWriter.listSegments(source)) {
+            records += readSegment(segment, handler);
+        }
+        return records;
+    }
+
+    public static long readSegment(File segment, RecordHandler handler) throws IOException {
+        ByteBuffer buffer;
+        try (RandomAccessFile raf = new RandomAccessFile(segment, "r")) {
+            buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+        }
+        if (buffer.remaining() < SessionLogWriter.SEGMENT_HEADER_SIZE || buffer.getLong() != SessionLogWriter.MAGIC) {
+            throw new IOException("Not a session log segment: " + segment);
+        }
+        int version = buffer.getInt();
+        if (version != SessionLogWriter.VERSION) {
+            throw new IOException("Unsupported segment version " + version + ": " + segment);
+        }
+        buffer.getInt();
+
+        LogEntry entry = LogEntry.empty();
+        long records = 0;
+        while (buffer.remaining() >= Integer.BYTES) {
+            int length = buffer.getInt();
+            // Zero marks the end of the data, anything that doesn't fit is a torn write
+            if (length < SessionLogWriter.RECORD_FIXED_SIZE || length > buffer.remaining()) {
+                break;
+            }
+            int end = buffer.position() + length;
+            long epochMillis = buffer.getLong();
+            long nanoTime = buffer.getLong();
+            int type = buffer.get();
+            int packetId = buffer.getInt();
+            long rttMicros = buffer.getLong();
+            int queueDepth = buffer.getInt();
+            int categoryLength = buffer.get() & 0xFF;
+            if (categoryLength > end - buffer.position()) {
+                break;
+            }
+            String category = categoryLength > 0 ? readString(buffer, categoryLength) : null;
+            String message = readString(buffer, end - buffer.position());
+            entry.set(type >= 0 && type < TYPES.length ? TYPES[type] : null, category, message,
+                    epochMillis, nanoTime, packetId, rttMicros, queueDepth);
+            handler.onRecord(entry);
+            records++;
+        }
+        return records;
+    }
+
+    private static String readString(ByteBuffer buffer, int length) {
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
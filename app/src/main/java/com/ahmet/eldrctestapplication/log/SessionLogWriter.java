@@ -0,0 +1,270 @@
+package com.ahmet.eldrctestapplication.log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Persists log entries to memory mapped segment files so they survive the activity.
+ * append() only stages the entry in a lock-free queue; a background thread encodes it into the
+ * current segment. When a segment is full the next one is started and the oldest segments beyond
+ * the limit are deleted. Entries are dropped (and counted) rather than blocking when the writer
+ * falls behind by more than the staging limit.
+ *
+ * Segment layout, big endian:
+ * <pre>
+ *   8 bytes  magic "ELDRLOG1"
+ *   4 bytes  format version
+ *   4 bytes  reserved
+ *   records: int length, long epoch millis, long nanoTime, byte LogType ordinal,
+ *            int packet ID, long RTT micros, int queue depth,
+ *            byte category length, UTF-8 category, UTF-8 message
+ *   int 0    end of data (the mapped file is zero filled)
+ * </pre>
+ * Unset numeric fields are stored as -1. The length is written last, so a record cut short by a crash reads as the end of the segment.
+ * Use {@link SessionLogReader} to read segments back, also on a desktop JVM.
+ */
+public class SessionLogWriter implements Runnable {
+
+    public static final long MAGIC = 0x454C44524C4F4731L; // "ELDRLOG1"
+    public static final int VERSION = 1;
+    public static final int SEGMENT_HEADER_SIZE = 16;
+    // Bytes of a record after its length field, without the message
+    public static final int RECORD_FIXED_SIZE = Long.BYTES + Long.BYTES + 1 + Integer.BYTES + Long.BYTES + Integer.BYTES + 1;
+    static final int MAX_CATEGORY_LENGTH = 255;
+    public static final String SEGMENT_PREFIX = "segment-";
+    public static final String SEGMENT_SUFFIX = ".log";
+
+    public static final int DEFAULT_SEGMENT_SIZE = 4 * 1024 * 1024;
+    public static final int DEFAULT_MAX_SEGMENTS = 8;
+    public static final int DEFAULT_MAX_STAGED = 10000;
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final File directory;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final int maxStaged;
+
+    private final ConcurrentLinkedQueue<LogEntry> staged = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger stagedCount = new AtomicInteger();
+    private final AtomicBoolean signalled = new AtomicBoolean();
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    // Only touched on the writer thread
+    private MappedByteBuffer segment;
+    private long segmentSequence;
+
+    private final AtomicLong writtenCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+    private final AtomicLong segmentCount = new AtomicLong();
+    private volatile IOException lastError;
+
+    public SessionLogWriter(File directory) {
+        this(directory, DEFAULT_SEGMENT_SIZE, DEFAULT_MAX_SEGMENTS, DEFAULT_MAX_STAGED);
+    }
+
+    public SessionLogWriter(File directory, int segmentSize, int maxSegments, int maxStaged) {
+        if (segmentSize < SEGMENT_HEADER_SIZE + Integer.BYTES * 2 + RECORD_FIXED_SIZE || maxSegments < 1) {
+            throw new IllegalArgumentException("Segment size or count too small");
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSegments = maxSegments;
+        this.maxStaged = maxStaged;
+        this.thread = new Thread(this, "SessionLogWriter");
+        this.thread.setDaemon(true);
+        this.thread.setPriority(Thread.MIN_PRIORITY);
+        this.thread.start();
+    }
+
+    // Never blocks, returns false when the entry was dropped because the writer is too far behind.
+    // A staged entry is retained until it is written, the caller keeps its own reference.
+    public boolean append(LogEntry entry) {
+        if (!running || stagedCount.incrementAndGet() > maxStaged) {
+            stagedCount.decrementAndGet();
+            droppedCount.incrementAndGet();
+            return false;
+        }
+        entry.retain();
+        staged.add(entry);
+        if (signalled.compareAndSet(false, true)) {
+            LockSupport.unpark(thread);
+        }
+        return true;
+    }
+
+    // Signals the writer thread and returns at once, safe to call from the main thread.
+    // The thread then writes what is staged, flushes the segment to disk and exits on its own.
+    public void close() {
+        running = false;
+        LockSupport.unpark(thread);
+    }
+
+    // Waits until the writer thread has flushed and exited after close(), returns false on timeout
+    public boolean awaitClosed(long timeout, TimeUnit unit) throws InterruptedException {
+        thread.join(Math.max(1, unit.toMillis(timeout)));
+        return !thread.isAlive();
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    public long getWrittenCount() {
+        return writtenCount.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    public long getSegmentCount() {
+        return segmentCount.get();
+    }
+
+    // Last I/O failure, the writer keeps dropping entries until a new segment can be opened
+    public IOException getLastError() {
+        return lastError;
+    }
+
+    @Override
+    public void run() {
+        while (true) {
+            signalled.set(false);
+            boolean stopping = !running;
+            LogEntry entry;
+            while ((entry = staged.poll()) != null) {
+                stagedCount.decrementAndGet();
+                write(entry);
+                entry.release();
+            }
+            if (stopping) {
+                break;
+            }
+            LockSupport.park(this);
+        }
+        if (segment != null) {
+            segment.force();
+        }
+        // An append racing with close() may stage after the last drain, it is dropped
+        LogEntry late;
+        while ((late = staged.poll()) != null) {
+            stagedCount.decrementAndGet();
+            droppedCount.incrementAndGet();
+            late.release();
+        }
+    }
+
+    private void write(LogEntry entry) {
+        byte[] category = entry.getCategory() != null ? entry.getCategory().getBytes(StandardCharsets.UTF_8) : EMPTY;
+        byte[] message = entry.getMessage() != null ? entry.getMessage().getBytes(StandardCharsets.UTF_8) : EMPTY;
+        // A category or message longer than the space available is cut to fit
+        int categoryLength = Math.min(category.length, MAX_CATEGORY_LENGTH);
+        int maxMessage = segmentSize - SEGMENT_HEADER_SIZE - Integer.BYTES * 2 - RECORD_FIXED_SIZE - categoryLength;
+        int messageLength = Math.max(0, Math.min(message.length, maxMessage));
+        int recordSize = Integer.BYTES + RECORD_FIXED_SIZE + categoryLength + messageLength;
+        try {
+            // Room for the record plus the terminating zero length
+            if (segment == null || segment.remaining() < recordSize + Integer.BYTES) {
+                rotate();
+            }
+        } catch (IOException e) {
+            lastError = e;
+            segment = null;
+            droppedCount.incrementAndGet();
+            return;
+        }
+        int start = segment.position();
+        segment.position(start + Integer.BYTES);
+        segment.putLong(entry.getEpochMillis());
+        segment.putLong(entry.getNanoTime());
+        segment.put((byte) entry.getType().ordinal());
+        segment.putInt(entry.getPacketId());
+        segment.putLong(entry.getRttMicros());
+        segment.putInt(entry.getQueueDepth());
+        segment.put((byte) categoryLength);
+        segment.put(category, 0, categoryLength);
+        segment.put(message, 0, messageLength);
+        segment.putInt(start, RECORD_FIXED_SIZE + categoryLength + messageLength);
+        writtenCount.incrementAndGet();
+    }
+
+    private void rotate() throws IOException {
+        if (segment != null) {
+            segment.force();
+            segment = null;
+        } else if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Can't create " + directory);
+        }
+        if (segmentSequence == 0) {
+            segmentSequence = nextSequence();
+        }
+        File file = new File(directory, segmentName(segmentSequence++));
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(segmentSize);
+            // The mapping stays valid after the channel is closed
+            segment = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+        segment.order(ByteOrder.BIG_ENDIAN);
+        segment.putLong(MAGIC);
+        segment.putInt(VERSION);
+        segment.putInt(0);
+        segmentCount.incrementAndGet();
+        deleteOldSegments();
+    }
+
+    // Continues after segments left by earlier sessions so they rotate out in order
+    private long nextSequence() {
+        long max = 0;
+        for (File file : listSegments(directory)) {
+            max = Math.max(max, sequenceOf(file));
+        }
+        return max + 1;
+    }
+
+    private void deleteOldSegments() {
+        File[] segments = listSegments(directory);
+        for (int i = 0; i < segments.length - maxSegments; i++) {
+            if (!segments[i].delete()) {
+                lastError = new IOException("Can't delete " + segments[i]);
+            }
+        }
+    }
+
+    static String segmentName(long sequence) {
+        return String.format(Locale.US, "%s%08d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX);
+    }
+
+    // Segment files of the directory, oldest first
+    static File[] listSegments(File directory) {
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX));
+        if (files == null) {
+            return new File[0];
+        }
+        Arrays.sort(files, (a, b) -> Long.compare(sequenceOf(a), sequenceOf(b)));
+        return files;
+    }
+
+    private static long sequenceOf(File file) {
+        String name = file.getName();
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.ahmet.eldrctestapplication.websocket;
+
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder;
+import com.ahmet.eldrctestapplication.log.LogAdapter;
+import com.ahmet.eldrctestapplication.log.Logger;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Robot sessions of one controller, keyed by robot id, with named groups for broadcasting.
+ * Every session shares the {@link WebSocketScheduler} timer thread and one {@link WriterPool}
+ * writer thread. Inbound packets are decoded inline on each client's read thread, so decoding adds
+ * no threads either. What still grows with the fleet are the read and write threads Java-WebSocket
+ * starts for every client; the library has no way to share those.
+ */
+public class ConnectionManager {
+
+    private final LogAdapter logAdapter;
+    private final Logger log;
+    private final WriterPool writerPool = new WriterPool("SocketWriterPool");
+    private final ConcurrentHashMap<String, WebSocketManager> sessions = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Set<String>> groups = new ConcurrentHashMap<>();
+
+    public ConnectionManager(LogAdapter logAdapter) {
+        this.logAdapter = logAdapter;
+        this.log = new Logger(WebSocketManager.LOG_TAG, logAdapter);
+    }
+
+    // Creates the session without connecting it
+    public WebSocketManager add(String robotId, String url) {
+        WebSocketManager session = new WebSocketManager(url, logAdapter, writerPool);
+        if (sessions.putIfAbsent(robotId, session) != null) {
+            session.shutdown();
+            throw new IllegalStateException("Robot already added: " + robotId);
+        }
+        log.info("Robot added: {} ({})", robotId, url);
+        return session;
+    }
+
+    public WebSocketManager get(String robotId) {
+        return sessions.get(robotId);
+    }
+
+    // Disconnects the robot and drops it from every group
+    public boolean remove(String robotId) {
+        WebSocketManager session = sessions.remove(robotId);
+        if (session == null) {
+            return false;
+        }
+        for (Set<String> members : groups.values()) {
+            members.remove(robotId);
+        }
+        close(session);
+        log.info("Robot removed: {}", robotId);
+        return true;
+    }
+
+    public Set<String> getRobotIds() {
+        return Collections.unmodifiableSet(sessions.keySet());
+    }
+
+    public int size() {
+        return sessions.size();
+    }
+
+    public void connectAll() {
+        for (WebSocketManager session : sessions.values()) {
+            session.connect();
+        }
+    }
+
+    public void disconnectAll() {
+        for (WebSocketManager session : sessions.values()) {
+            if (session.isSocketOpen()) {
+                session.disconnect();
+            }
+        }
+    }
+
+    // Closes every session and stops the shared writer thread, the manager can't be used afterwards
+    public void shutdown() {
+        for (String robotId : sessions.keySet()) {
+            remove(robotId);
+        }
+        groups.clear();
+        writerPool.stop();
+    }
+
+    public void addToGroup(String group, String robotId) {
+        groups.computeIfAbsent(group, key -> ConcurrentHashMap.newKeySet()).add(robotId);
+    }
+
+    public void removeFromGroup(String group, String robotId) {
+        Set<String> members = groups.get(group);
+        if (members != null) {
+            members.remove(robotId);
+        }
+    }
+
+    public Set<String> getGroup(String group) {
+        Set<String> members = groups.get(group);
+        return members != null ? Collections.unmodifiableSet(members) : Collections.<String>emptySet();
+    }
+
+    // Posts the same packet to every connected robot of the group, returns how many got it.
+    // The lane is SendPriority.of(component): only brake and power commands overtake queued traffic,
+    // a motor stop needs broadcast(group, component, packet, SendPriority.SAFETY).
+    public int broadcast(String group, RobotMessageBuilder.Component component, String packet) {
+        return broadcast(group, component, packet, SendPriority.of(component));
+    }
+
+    public int broadcast(String group, RobotMessageBuilder.Component component, String packet, SendPriority priority) {
+        Set<String> members = groups.get(group);
+        if (members == null) {
+            return 0;
+        }
+        int posted = 0;
+        for (String robotId : members) {
+            posted += post(sessions.get(robotId), component, packet, priority);
+        }
+        return posted;
+    }
+
+    public int broadcastAll(RobotMessageBuilder.Component component, String packet) {
+        return broadcastAll(component, packet, SendPriority.of(component));
+    }
+
+    public int broadcastAll(RobotMessageBuilder.Component component, String packet, SendPriority priority) {
+        int posted = 0;
+        for (WebSocketManager session : sessions.values()) {
+            posted += post(session, component, packet, priority);
+        }
+        return posted;
+    }
+
+    private static int post(WebSocketManager session, RobotMessageBuilder.Component component, String packet,
+                            SendPriority priority) {
+        if (session == null || !session.isSocketOpen()) {
+            return 0;
+        }
+        session.postCommand(component, packet, priority);
+        return 1;
+    }
+
+    private static void close(WebSocketManager session) {
+        if (session.isSocketOpen()) {
+            session.disconnect();
+        }
+        session.shutdown();
+    }
+}
@@ -0,0 +1,178 @@
+package com.ahmet.eldrctestapplication.websocket;
+
+import org.java_websocket.framing.CloseFrame;
+import org.java_websocket.framing.Framedata;
+import org.java_websocket.framing.PingFrame;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The single liveness mechanism of a connection, also measuring round trip time.
+ * Every ping carries the monotonic send time as an 8 byte payload which the peer echoes in the pong,
+ * so no per ping state is kept. RTTs go into a {@link LatencyHistogram} in microseconds.
+ *
+ * Any pong or inbound message counts as a sign of life. When the miss threshold of pings in a row
+ * went unanswered, the link is declared dead: the {@link LinkLostListener} fires right away and the
+ * connection is closed abnormally, which starts the reconnect loop. With the defaults a dead link
+ * is detected within about a second. The library's own lost connection timer should be disabled.
+ */
+public class LinkProbe {
+
+    public static final long DEFAULT_INTERVAL_MS = 250;
+    public static final int DEFAULT_MISS_THRESHOLD = 3;
+
+    public interface LinkLostListener {
+        // Called on the scheduler thread once per dead link, before the connection is closed
+        void onLinkLost(long silenceMs);
+    }
+
+    private static final int PAYLOAD_SIZE = Long.BYTES;
+
+    private final SimpleWebSocket webSocket;
+    private final LatencyHistogram rttHistogram = new LatencyHistogram();
+    private final AtomicLong pingCount = new AtomicLong();
+    private final AtomicLong pongCount = new AtomicLong();
+    private volatile long lastRttMicros = -1;
+    private volatile long intervalMs = DEFAULT_INTERVAL_MS;
+    private volatile int missThreshold = DEFAULT_MISS_THRESHOLD;
+    private volatile LinkLostListener linkLostListener;
+    // Pings sent since the peer was last heard from, counted on the scheduler and reset on the read thread
+    private final AtomicInteger unanswered = new AtomicInteger();
+    private volatile long lastHeardNanos;
+    private final AtomicLong linkLostCount = new AtomicLong();
+    private ScheduledFuture<?> pingTask;
+
+    public LinkProbe(SimpleWebSocket webSocket) {
+        this.webSocket = webSocket;
+    }
+
+    // Takes effect on the next start(), 0 disables probing
+    public void setInterval(long intervalMs) {
+        this.intervalMs = intervalMs;
+    }
+
+    public long getInterval() {
+        return intervalMs;
+    }
+
+    // Unanswered pings in a row before the link is declared dead, 0 only measures RTT
+    public void setMissThreshold(int missThreshold) {
+        this.missThreshold = missThreshold;
+    }
+
+    public int getMissThreshold() {
+        return missThreshold;
+    }
+
+    public void setLinkLostListener(LinkLostListener listener) {
+        this.linkLostListener = listener;
+    }
+
+    public synchronized void start() {
+        stop();
+        unanswered.set(0);
+        lastHeardNanos = System.nanoTime();
+        long interval = intervalMs;
+        if (interval > 0) {
+            pingTask = WebSocketScheduler.get().scheduleAtFixedRate(this::tick, 0, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public synchronized void stop() {
+        if (pingTask != null) {
+            pingTask.cancel(false);
+            pingTask = null;
+        }
+    }
+
+    // Call for every inbound frame, the peer is evidently alive
+    public void onActivity() {
+        // Read first, most frames arrive with nothing to reset
+        if (unanswered.get() != 0) {
+            unanswered.set(0);
+        }
+        lastHeardNanos = System.nanoTime();
+    }
+
+    // Returns the RTT in microseconds, or -1 for pongs without our timestamp (e.g. answers to
+    // library pings), which prove liveness but carry no RTT
+    public long onPong(Framedata frame) {
+        onActivity();
+        ByteBuffer payload = frame.getPayloadData();
+        if (payload.remaining() != PAYLOAD_SIZE) {
+            return -1;
+        }
+        long rttNanos = System.nanoTime() - payload.getLong(payload.position());
+        long rttMicros = TimeUnit.NANOSECONDS.toMicros(rttNanos);
+        lastRttMicros = rttMicros;
+        rttHistogram.record(rttMicros);
+        pongCount.incrementAndGet();
+        return rttMicros;
+    }
+
+    public LatencyHistogram getRttHistogram() {
+        return rttHistogram;
+    }
+
+    // Most recent RTT in microseconds, -1 before the first pong
+    public long getLastRttMicros() {
+        return lastRttMicros;
+    }
+
+    public long getPingCount() {
+        return pingCount.get();
+    }
+
+    public long getPongCount() {
+        return pongCount.get();
+    }
+
+    public long getLinkLostCount() {
+        return linkLostCount.get();
+    }
+
+    private void tick() {
+        int threshold = missThreshold;
+        if (threshold > 0 && unanswered.get() >= threshold && webSocket.isOpen()) {
+            declareLost();
+            return;
+        }
+        sendPing();
+    }
+
+    private void declareLost() {
+        stop();
+        linkLostCount.incrementAndGet();
+        long silenceMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - lastHeardNanos);
+        LinkLostListener listener = linkLostListener;
+        if (listener != null) {
+            try {
+                listener.onLinkLost(silenceMs);
+            } catch (RuntimeException ignored) {
+                // A failing listener must not keep the dead connection open
+            }
+        }
+        webSocket.closeConnection(CloseFrame.ABNORMAL_CLOSE, "No reply for " + silenceMs + " ms");
+    }
+
+    private void sendPing() {
+        if (!webSocket.isOpen()) {
+            return;
+        }
+        ByteBuffer payload = ByteBuffer.allocate(PAYLOAD_SIZE);
+        payload.putLong(0, System.nanoTime());
+        PingFrame frame = new PingFrame();
+        frame.setPayload(payload);
+        try {
+            webSocket.sendFrame(frame);
+            pingCount.incrementAndGet();
+            unanswered.incrementAndGet();
+        } catch (RuntimeException e) {
+            // The link dropped between the check and the send, the next tick tries again
+        }
+    }
+}
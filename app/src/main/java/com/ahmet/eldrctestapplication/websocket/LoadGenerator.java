@@ -0,0 +1,257 @@
+package com.ahmet.eldrctestapplication.websocket;
+
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Component;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Index;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Process;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Receiver;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Transmitter;
+
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongConsumer;
+
+/**
+ * Open loop load generator for characterizing the link and the robot firmware.
+ * Packet k is due at start + k / rate regardless of how long earlier sends took. A send that falls
+ * behind is made up right away, and every latency is measured from the due time, not from the actual
+ * send. A stall therefore shows up in the histograms instead of silently lowering the rate
+ * (no coordinated omission).
+ *
+ * The traffic is a weighted mix of real protocol packets: MOTOR_DRIVE commands (fire and forget),
+ * WRITE and READ requests whose ACK/ANSWER is awaited through the request tracker. A motor command
+ * the manager fails to send counts as a failure, not as sent.
+ */
+public class LoadGenerator implements Runnable {
+
+    public static final double DEFAULT_RATE = 100;
+
+    private final WebSocketManager manager;
+    // Runs on the generator thread before every send, null outside tests
+    private final LongConsumer beforeSend;
+    private volatile double rate = DEFAULT_RATE;
+    private volatile int motorWeight = 1;
+    private volatile int writeWeight = 0;
+    private volatile int readWeight = 0;
+    private volatile Receiver receiver = Receiver.MAIN_BOARD;
+    private volatile Component component = Component.LED_HEADLIGHT;
+
+    private final int[] speeds = new int[6];
+    private Thread thread;
+    private volatile boolean running;
+    // Replies still in flight from an earlier run are not counted in the current one
+    private volatile int generation;
+    private long startNanos;
+    private volatile long stopNanos;
+
+    // Due time until the send call returned, every packet
+    private final LatencyHistogram sendLatency = new LatencyHistogram();
+    // Due time until the ACK/ANSWER arrived, WRITE and READ only
+    private final LatencyHistogram replyLatency = new LatencyHistogram();
+    private final AtomicLong motorCount = new AtomicLong();
+    private final AtomicLong writeCount = new AtomicLong();
+    private final AtomicLong readCount = new AtomicLong();
+    private final AtomicLong replyCount = new AtomicLong();
+    private final AtomicLong timeoutCount = new AtomicLong();
+    private final AtomicLong failureCount = new AtomicLong();
+    private final AtomicLong notConnectedCount = new AtomicLong();
+
+    public LoadGenerator(WebSocketManager manager) {
+        this(manager, null);
+    }
+
+    // Tests pass a hook that gets the packet's sequence number, e.g. to stall the sender
+    LoadGenerator(WebSocketManager manager, LongConsumer beforeSend) {
+        this.manager = manager;
+        this.beforeSend = beforeSend;
+    }
+
+    // Target rate in packets per second, takes effect on the next start()
+    public void setRate(double packetsPerSecond) {
+        if (packetsPerSecond <= 0) {
+            throw new IllegalArgumentException("Rate must be positive");
+        }
+        this.rate = packetsPerSecond;
+    }
+
+    // Relative share of each packet type, e.g. (8, 1, 1) for 80% motor commands
+    public void setMix(int motorWeight, int writeWeight, int readWeight) {
+        if (motorWeight < 0 || writeWeight < 0 || readWeight < 0 || motorWeight + writeWeight + readWeight == 0) {
+            throw new IllegalArgumentException("Weights must be non negative and not all zero");
+        }
+        this.motorWeight = motorWeight;
+        this.writeWeight = writeWeight;
+        this.readWeight = readWeight;
+    }
+
+    // Node and component WRITE and READ requests are addressed to
+    public void setTarget(Receiver receiver, Component component) {
+        this.receiver = receiver;
+        this.component = component;
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        reset();
+        generation++;
+        running = true;
+        startNanos = System.nanoTime();
+        stopNanos = 0;
+        thread = new Thread(this, "LoadGenerator");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Stops sending and waits for the generator thread; replies still in flight keep counting
+    public synchronized Report stop() {
+        if (running) {
+            running = false;
+            stopNanos = System.nanoTime();
+            LockSupport.unpark(thread);
+            try {
+                thread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return getReport();
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public Report getReport() {
+        long end = stopNanos != 0 ? stopNanos : System.nanoTime();
+        return new Report(this, startNanos != 0 ? end - startNanos : 0);
+    }
+
+    @Override
+    public void run() {
+        double periodNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = startNanos;
+        long sequence = 0;
+        while (running) {
+            long due = start + (long) (sequence * periodNanos);
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(this, wait);
+                continue;
+            }
+            send(sequence++, due);
+        }
+    }
+
+    private void send(long sequence, long due) {
+        if (beforeSend != null) {
+            beforeSend.accept(sequence);
+        }
+        if (!manager.isSocketOpen()) {
+            notConnectedCount.incrementAndGet();
+            return;
+        }
+        int motor = motorWeight;
+        int write = writeWeight;
+        long pick = Long.remainderUnsigned(sequence * 0x9E3779B97F4A7C15L, motor + write + readWeight);
+        if (pick < motor) {
+            // Sweeps the speeds so the firmware sees changing setpoints
+            int speed = (int) (sequence % 201) - 100;
+            for (int i = 0; i < speeds.length; i++) {
+                speeds[i] = i < 3 ? speed : -speed;
+            }
+            if (manager.sendPacket(Transmitter.MASTER, Receiver.ALL, Process.WRITE, Component.MOTOR_DRIVE, Index.ALL, speeds)) {
+                motorCount.incrementAndGet();
+            } else {
+                failureCount.incrementAndGet();
+            }
+        } else if (pick < motor + write) {
+            track(manager.writeParameter(receiver, component, Index.INDEX_1, 0, (int) (sequence & 0xFF)), due);
+            writeCount.incrementAndGet();
+        } else {
+            track(manager.readParameter(receiver, component, Index.INDEX_1, 0), due);
+            readCount.incrementAndGet();
+        }
+        sendLatency.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - due));
+    }
+
+    private void track(CompletableFuture<Integer> reply, long due) {
+        int run = generation;
+        reply.whenComplete((value, error) -> {
+            if (run != generation) {
+                return;
+            }
+            if (error == null) {
+                replyCount.incrementAndGet();
+                replyLatency.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - due));
+            } else if (error instanceof TimeoutException || error.getCause() instanceof TimeoutException) {
+                timeoutCount.incrementAndGet();
+            } else {
+                failureCount.incrementAndGet();
+            }
+        });
+    }
+
+    private void reset() {
+        sendLatency.reset();
+        replyLatency.reset();
+        motorCount.set(0);
+        writeCount.set(0);
+        readCount.set(0);
+        replyCount.set(0);
+        timeoutCount.set(0);
+        failureCount.set(0);
+        notConnectedCount.set(0);
+    }
+
+    // Snapshot of one run, latencies in microseconds
+    public static final class Report {
+
+        public final double targetRate;
+        public final double achievedRate;
+        public final long durationMs;
+        public final long motorCount;
+        public final long writeCount;
+        public final long readCount;
+        public final long replyCount;
+        public final long timeoutCount;
+        public final long failureCount;
+        public final long notConnectedCount;
+        public final LatencyHistogram sendLatency = new LatencyHistogram();
+        public final LatencyHistogram replyLatency = new LatencyHistogram();
+
+        private Report(LoadGenerator generator, long durationNanos) {
+            targetRate = generator.rate;
+            durationMs = TimeUnit.NANOSECONDS.toMillis(durationNanos);
+            motorCount = generator.motorCount.get();
+            writeCount = generator.writeCount.get();
+            readCount = generator.readCount.get();
+            replyCount = generator.replyCount.get();
+            timeoutCount = generator.timeoutCount.get();
+            failureCount = generator.failureCount.get();
+            notConnectedCount = generator.notConnectedCount.get();
+            achievedRate = durationNanos > 0
+                    ? (motorCount + writeCount + readCount) * 1e9 / durationNanos : 0;
+            sendLatency.add(generator.sendLatency);
+            replyLatency.add(generator.replyLatency);
+        }
+
+        public long getErrorCount() {
+            return timeoutCount + failureCount + notConnectedCount;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "target=%.0f/s achieved=%.1f/s in %d ms", targetRate, achievedRate, durationMs)
+                    + " | motor=" + motorCount + " write=" + writeCount + " read=" + readCount
+                    + " replies=" + replyCount
+                    + " | errors: timeout=" + timeoutCount + " failed=" + failureCount + " notConnected=" + notConnectedCount
+                    + " | send us " + sendLatency.summary()
+                    + " | reply us " + replyLatency.summary();
+        }
+    }
+}
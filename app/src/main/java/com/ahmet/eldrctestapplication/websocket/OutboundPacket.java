@@ -0,0 +1,23 @@
+package com.ahmet.eldrctestapplication.websocket;
+
+/**
+ * A packet waiting in a {@link SocketWriter} lane, stamped with the monotonic time it was posted.
+ * The stamp lets the writer drop commands that waited too long and measure how old sent ones were.
+ * Only traffic posted to the writer is stamped; packets sent directly on the caller's thread
+ * (see WebSocketManager.sendMessage and sendPacket) have no queueing stage and no stamp.
+ */
+public final class OutboundPacket {
+
+    public final String packet;
+    // System.nanoTime() when the packet entered the pipeline
+    public final long enqueuedNanos;
+
+    public OutboundPacket(String packet, long enqueuedNanos) {
+        this.packet = packet;
+        this.enqueuedNanos = enqueuedNanos;
+    }
+
+    public long ageNanos(long nowNanos) {
+        return nowNanos - enqueuedNanos;
+    }
+}
@@ -0,0 +1,149 @@
+package com.ahmet.eldrctestapplication.websocket;
+
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Component;
+
+/**
+ * Bounded FIFO of {@link OutboundPacket}s drained by the {@link SocketWriter} thread.
+ * When the queue is full the {@link OverflowPolicy} decides what is lost, so a slow link
+ * costs dropped packets instead of unbounded memory and seconds of queueing delay.
+ */
+public class OutboundQueue {
+
+    public enum OverflowPolicy {
+        // Discards the packet waiting longest to make room for the new one
+        DROP_OLDEST,
+        // Rejects the new packet, what is already queued goes out unchanged
+        DROP_NEWEST,
+        // Replaces a queued packet for the same component in place, otherwise behaves like DROP_OLDEST
+        COALESCE
+    }
+
+    public static final int DEFAULT_CAPACITY = 64;
+
+    private static final int NO_KEY = -1;
+
+    private final OutboundPacket[] packets;
+    private final int[] keys;
+    private int head;
+    private int size;
+    private volatile OverflowPolicy policy;
+
+    private long offeredCount;
+    private long droppedCount;
+    private long coalescedCount;
+    private int maxDepth;
+
+    public OutboundQueue() {
+        this(DEFAULT_CAPACITY, OverflowPolicy.DROP_OLDEST);
+    }
+
+    public OutboundQueue(int capacity, OverflowPolicy policy) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.packets = new OutboundPacket[capacity];
+        this.keys = new int[capacity];
+        this.policy = policy;
+    }
+
+    public void setPolicy(OverflowPolicy policy) {
+        this.policy = policy;
+    }
+
+    public OverflowPolicy getPolicy() {
+        return policy;
+    }
+
+    // Returns false when the packet itself was dropped
+    public boolean offer(String packet) {
+        return offer(NO_KEY, new OutboundPacket(packet, System.nanoTime()));
+    }
+
+    // The component is the coalescing key, only used by the COALESCE policy
+    public boolean offer(Component component, String packet) {
+        return offer(component.ordinal(), new OutboundPacket(packet, System.nanoTime()));
+    }
+
+    public boolean offer(OutboundPacket packet) {
+        return offer(NO_KEY, packet);
+    }
+
+    public boolean offer(Component component, OutboundPacket packet) {
+        return offer(component.ordinal(), packet);
+    }
+
+    public synchronized OutboundPacket poll() {
+        if (size == 0) {
+            return null;
+        }
+        OutboundPacket packet = packets[head];
+        packets[head] = null;
+        head = (head + 1) % packets.length;
+        size--;
+        return packet;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return packets.length;
+    }
+
+    // Drops everything still queued, counted as dropped
+    public synchronized void clear() {
+        while (size > 0) {
+            poll();
+            droppedCount++;
+        }
+    }
+
+    public synchronized long getOfferedCount() {
+        return offeredCount;
+    }
+
+    // Packets lost to overflow, either the new one or an evicted one depending on the policy
+    public synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+
+    // Packets replaced by a newer one for the same component
+    public synchronized long getCoalescedCount() {
+        return coalescedCount;
+    }
+
+    public synchronized int getMaxDepth() {
+        return maxDepth;
+    }
+
+    private synchronized boolean offer(int key, OutboundPacket packet) {
+        offeredCount++;
+        OverflowPolicy current = policy;
+        if (current == OverflowPolicy.COALESCE && key != NO_KEY) {
+            for (int i = 0; i < size; i++) {
+                int slot = (head + i) % packets.length;
+                if (keys[slot] == key) {
+                    packets[slot] = packet;
+                    coalescedCount++;
+                    return true;
+                }
+            }
+        }
+        if (size == packets.length) {
+            droppedCount++;
+            if (current == OverflowPolicy.DROP_NEWEST) {
+                return false;
+            }
+            poll();
+        }
+        int tail = (head + size) % packets.length;
+        packets[tail] = packet;
+        keys[tail] = key;
+        size++;
+        if (size > maxDepth) {
+            maxDepth = size;
+        }
+        return true;
+    }
+}
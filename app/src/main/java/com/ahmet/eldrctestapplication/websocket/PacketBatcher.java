@@ -0,0 +1,211 @@
+package com.ahmet.eldrctestapplication.websocket;
+
+import com.ahmet.eldrctestapplication.communication.PacketIdSequencer;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Component;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Process;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Coalesces protocol packets produced within a time window into one WebSocket frame.
+ * A frame is sent when the window since the first queued packet expires or when the next
+ * packet would exceed the byte budget. Packets are self delimiting ("...]"), so the receiving
+ * side splits a batched frame with the normal PacketDecoder.
+ *
+ * Adding only copies into the batch under the batcher's monitor. A flush swaps the full batch for
+ * the empty spare and calls the frame sender outside the monitor, so producers never wait for the
+ * network. Flushes hold a separate send lock, which keeps frames in the order they were batched.
+ *
+ * A safety command must not be followed by a setpoint that was batched before it.
+ * {@link #sendAhead} drops the batched WRITEs for the command's component, flushes the rest
+ * and only then sends the command, all under the send lock.
+ */
+public class PacketBatcher {
+
+    // Packets start with the three digit id followed by transmitter, receiver, process and component
+    static final int PROCESS_OFFSET = PacketIdSequencer.ID_LENGTH + 2;
+    static final int COMPONENT_OFFSET = PacketIdSequencer.ID_LENGTH + 3;
+    private static final byte WRITE_CODE = (byte) Process.WRITE.getCode();
+
+    // Serializes frame sends, always taken before the monitor
+    private final Object sendLock = new Object();
+    private final long windowMicros;
+    private final ScheduledExecutorService scheduler;
+    private final Consumer<ByteBuffer> frameSender;
+    private final Runnable flushTask = this::flush;
+
+    // Filled under the monitor; the spare is only touched while holding the send lock
+    private ByteBuffer batch;
+    private ByteBuffer spare;
+    private boolean flushScheduled;
+    private int batchedPackets;
+    // End offset of each batched packet in the batch, so discard never has to parse the bytes
+    private int[] packetEnds = new int[16];
+    private long packetCount;
+    private long frameCount;
+    private long discardedCount;
+
+    public PacketBatcher(long window, TimeUnit unit, int maxBytes,
+                         ScheduledExecutorService scheduler, Consumer<ByteBuffer> frameSender) {
+        this.batch = ByteBuffer.allocate(maxBytes);
+        this.spare = ByteBuffer.allocate(maxBytes);
+        this.windowMicros = unit.toMicros(window);
+        this.scheduler = scheduler;
+        this.frameSender = frameSender;
+    }
+
+    // Copies the packet between position and limit into the current batch
+    public void add(ByteBuffer packet) {
+        int length = packet.remaining();
+        while (true) {
+            synchronized (this) {
+                if (length <= batch.remaining()) {
+                    batch.put(packet);
+                    queued();
+                    return;
+                }
+                if (length > batch.capacity()) {
+                    break;
+                }
+            }
+            flush();
+        }
+        sendAlone(packet);
+    }
+
+    // Packets from RobotMessageBuilder are ASCII; anything else is sent as its UTF-8 bytes
+    public void add(CharSequence packet) {
+        int length = packet.length();
+        for (int i = 0; i < length; i++) {
+            if (packet.charAt(i) >= 0x80) {
+                add(ByteBuffer.wrap(packet.toString().getBytes(StandardCharsets.UTF_8)));
+                return;
+            }
+        }
+        while (true) {
+            synchronized (this) {
+                if (length <= batch.remaining()) {
+                    for (int i = 0; i < length; i++) {
+                        batch.put((byte) packet.charAt(i));
+                    }
+                    queued();
+                    return;
+                }
+                if (length > batch.capacity()) {
+                    break;
+                }
+            }
+            flush();
+        }
+        sendAlone(ByteBuffer.wrap(packet.toString().getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    // Sends whatever is batched right now
+    public void flush() {
+        synchronized (sendLock) {
+            ByteBuffer frame;
+            synchronized (this) {
+                flushScheduled = false;
+                if (batch.position() == 0) {
+                    return;
+                }
+                frame = batch;
+                batch = spare;
+                packetCount += batchedPackets;
+                batchedPackets = 0;
+                frameCount++;
+            }
+            frame.flip();
+            try {
+                frameSender.accept(frame);
+            } finally {
+                frame.clear();
+                spare = frame;
+            }
+        }
+    }
+
+    public synchronized long getPacketCount() {
+        return packetCount;
+    }
+
+    public synchronized long getFrameCount() {
+        return frameCount;
+    }
+
+    // Batched packets dropped because a safety command for their component was sent first
+    public synchronized long getDiscardedCount() {
+        return discardedCount;
+    }
+
+    // Drops the WRITEs batched for the component, flushes the remaining packets and runs the send.
+    // Nothing batched before the call can reach the socket after it.
+    public void sendAhead(Component component, Runnable send) {
+        synchronized (sendLock) {
+            if (component != null) {
+                synchronized (this) {
+                    discard((byte) component.getCode());
+                }
+            }
+            flush();
+            send.run();
+        }
+    }
+
+    // Component code of a protocol packet, null when it is too short or not a packet
+    static Component componentOf(CharSequence packet) {
+        return packet.length() > COMPONENT_OFFSET ? Component.fromCode(packet.charAt(COMPONENT_OFFSET)) : null;
+    }
+
+    // Removes the component's WRITEs by compacting the batch in place.
+    // Requests and MESSAGE chunks stay, their replies are awaited.
+    private void discard(byte componentCode) {
+        byte[] bytes = batch.array();
+        int start = 0;
+        int write = 0;
+        int kept = 0;
+        for (int i = 0; i < batchedPackets; i++) {
+            int end = packetEnds[i];
+            int length = end - start;
+            if (length <= COMPONENT_OFFSET || bytes[start + PROCESS_OFFSET] != WRITE_CODE
+                    || bytes[start + COMPONENT_OFFSET] != componentCode) {
+                System.arraycopy(bytes, start, bytes, write, length);
+                write += length;
+                packetEnds[kept++] = write;
+            }
+            start = end;
+        }
+        batch.position(write);
+        discardedCount += batchedPackets - kept;
+        batchedPackets = kept;
+    }
+
+    // Records the end of the packet just copied into the batch
+    private void queued() {
+        if (batchedPackets == packetEnds.length) {
+            packetEnds = Arrays.copyOf(packetEnds, batchedPackets * 2);
+        }
+        packetEnds[batchedPackets++] = batch.position();
+        if (!flushScheduled) {
+            flushScheduled = true;
+            scheduler.schedule(flushTask, windowMicros, TimeUnit.MICROSECONDS);
+        }
+    }
+
+    // A packet larger than a whole batch goes out as its own frame after what is already batched
+    private void sendAlone(ByteBuffer packet) {
+        synchronized (sendLock) {
+            flush();
+            synchronized (this) {
+                frameCount++;
+                packetCount++;
+            }
+            frameSender.accept(packet);
+        }
+    }
+}
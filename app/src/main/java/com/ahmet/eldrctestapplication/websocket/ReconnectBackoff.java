@@ -0,0 +1,33 @@
+package com.ahmet.eldrctestapplication.websocket;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Exponential backoff with jitter for reconnect attempts.
+ * The first retry comes after a few tens of milliseconds so a short Wi-Fi blip recovers almost
+ * immediately; the delay then doubles up to a cap. Jitter spreads the retries of several clients.
+ */
+public class ReconnectBackoff {
+
+    public static final long DEFAULT_INITIAL_DELAY_MS = 20;
+    public static final long DEFAULT_MAX_DELAY_MS = 2000;
+
+    private final long initialDelayMs;
+    private final long maxDelayMs;
+
+    public ReconnectBackoff() {
+        this(DEFAULT_INITIAL_DELAY_MS, DEFAULT_MAX_DELAY_MS);
+    }
+
+    public ReconnectBackoff(long initialDelayMs, long maxDelayMs) {
+        this.initialDelayMs = initialDelayMs;
+        this.maxDelayMs = maxDelayMs;
+    }
+
+    // Delay before the given attempt (0 based): a random value in the upper half of the exponential step
+    public long delayMs(int attempt) {
+        long delay = attempt >= 30 ? maxDelayMs : Math.min(maxDelayMs, initialDelayMs << attempt);
+        long half = delay / 2;
+        return half + ThreadLocalRandom.current().nextLong(delay - half + 1);
+    }
+}
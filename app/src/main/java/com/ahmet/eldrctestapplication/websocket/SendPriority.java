@@ -0,0 +1,31 @@
+package com.ahmet.eldrctestapplication.websocket;
+
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Component;
+
+/**
+ * Send lanes of the {@link SocketWriter}, drained strictly in this order.
+ */
+public enum SendPriority {
+    // Brake, power and stop commands; never held back by backpressure or batching
+    SAFETY,
+    // Latest-value-wins setpoints, one per component
+    CONTROL,
+    // Everything else: LED, PTZ, test traffic, bounded by the outbound queue
+    BULK;
+
+    // Default lane for a command to the component
+    public static SendPriority of(Component component) {
+        switch (component) {
+            case OUT_BRAKE:
+            case OUT_POWER:
+                return SAFETY;
+            default:
+                return CONTROL;
+        }
+    }
+
+    // A motor command is a stop when every speed is zero, stops go in the safety lane
+    public static SendPriority ofMotorSpeeds(int speedFL, int speedFR, int speedRL, int speedRR, int speedML, int speedMR) {
+        return (speedFL | speedFR | speedRL | speedRR | speedML | speedMR) == 0 ? SAFETY : CONTROL;
+    }
+}
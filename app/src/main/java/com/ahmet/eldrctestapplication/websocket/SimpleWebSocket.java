@@ -1,10 +1,12 @@
 package com.ahmet.eldrctestapplication.websocket;
 
 import org.java_websocket.WebSocket;
+import org.java_websocket.WebSocketImpl;
 import org.java_websocket.WebSocketListener;
 import org.java_websocket.client.WebSocketClient;
 import org.java_websocket.drafts.Draft;
 import org.java_websocket.exceptions.InvalidDataException;
+import org.java_websocket.framing.CloseFrame;
 import org.java_websocket.framing.Framedata;
 import org.java_websocket.framing.PingFrame;
 import org.java_websocket.handshake.ClientHandshake;
@@ -15,8 +17,9 @@ import java.net.InetSocketAddress;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.ByteBuffer;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 
@@ -24,12 +27,20 @@ public class SimpleWebSocket extends WebSocketClient {
 
     private WebSocketListener webSocketListener;
 
-    // Constants for ping interval, reconnect delay, max reconnect attempts, and connection timeout
-    private static final int PING_INTERVAL = 30000; // 30 seconds
-    private static final int RECONNECT_DELAY = 5000; // 5 seconds
-    private static final int MAX_RECONNECT_ATTEMPTS = 5;
-    private Timer pingTimer;
+    // Reconnects back off exponentially and never give up; liveness is checked by LinkProbe
+    private ScheduledFuture<?> reconnectTimer;
+    // Set from scheduling an attempt until it runs, so only one attempt is ever in flight
+    private final AtomicBoolean reconnectPending = new AtomicBoolean();
     private final AtomicInteger reconnectAttempts = new AtomicInteger(0);
+    private final ReconnectBackoff reconnectBackoff = new ReconnectBackoff();
+    // Cleared for user initiated closes so they don't trigger a reconnect
+    private volatile boolean autoReconnect = true;
+
+    // Reconnect latency: time from losing an open link until it is open again
+    private volatile long linkLostNanos;
+    private volatile long lastReconnectLatencyNanos;
+    private volatile long maxReconnectLatencyNanos;
+    private final AtomicInteger reconnectCount = new AtomicInteger(0);
 
     // Constructor to initialize WebSocketClient with URL and listener
     public SimpleWebSocket(String url, WebSocketListener listener) throws URISyntaxException {
@@ -45,8 +56,8 @@ public class SimpleWebSocket extends WebSocketClient {
     @Override
     public void onOpen(ServerHandshake handshakedata) {
         reconnectAttempts.set(0); // Reset reconnect attempts on successful connection
+        recordReconnectLatency();
         webSocketListener.onWebsocketOpen(this, handshakedata);
-        startPingTimer(); // Start the ping timer
     }
 
     @Override
@@ -61,8 +72,11 @@ public class SimpleWebSocket extends WebSocketClient {
 
     @Override
     public void onClose(int code, String reason, boolean remote) {
+        // Failed attempts report NEVER_CONNECTED, the clock keeps running from the original loss
+        if (autoReconnect && code != CloseFrame.NEVER_CONNECTED && linkLostNanos == 0) {
+            linkLostNanos = System.nanoTime();
+        }
         webSocketListener.onWebsocketClose(this, code, reason, remote);
-        stopPingTimer(); // Stop the ping timer
         attemptReconnect(); // Attempt to reconnect
     }
 
@@ -124,44 +138,85 @@ public class SimpleWebSocket extends WebSocketClient {
         return webSocketListener.getRemoteSocketAddress(conn);
     }
 
-    // Start a timer to send ping frames periodically
-    private void startPingTimer() {
-        pingTimer = new Timer();
-        pingTimer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                if (isOpen()) {
-                    sendPing(); // Send ping frame
-                }
+    // Attempt to reconnect after an exponentially growing, jittered delay.
+    // The scheduler only waits out the delay; reconnect() closes and joins the client's threads,
+    // so it runs on the reconnect executor where it can't hold up pings and timeouts.
+    // A failed attempt can report itself twice, through reconnect() throwing and through onClose;
+    // the pending flag lets only the first schedule the next attempt and take a backoff step.
+    private void attemptReconnect() {
+        if (!autoReconnect || !reconnectPending.compareAndSet(false, true)) {
+            return;
+        }
+        long delay = reconnectBackoff.delayMs(reconnectAttempts.getAndIncrement());
+        reconnectTimer = WebSocketScheduler.get().schedule(
+                () -> WebSocketScheduler.reconnects().execute(this::runReconnect), delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void runReconnect() {
+        // Cleared before connecting, the failure of this attempt schedules the next one
+        reconnectPending.set(false);
+        if (!autoReconnect) {
+            return;
+        }
+        try {
+            reconnect();
+        } catch (Exception e) {
+            webSocketListener.onWebsocketError(this, e);
+            attemptReconnect();
+        }
+    }
+
+    // Enables or disables reconnecting after the link closes; disabling also cancels a pending attempt
+    public void setAutoReconnect(boolean autoReconnect) {
+        this.autoReconnect = autoReconnect;
+        if (!autoReconnect) {
+            linkLostNanos = 0;
+            ScheduledFuture<?> timer = reconnectTimer;
+            // An attempt that already fired clears the flag itself when it runs
+            if (timer != null && timer.cancel(false)) {
+                reconnectPending.set(false);
             }
-        }, PING_INTERVAL, PING_INTERVAL);
+        }
+    }
+
+    public long getLastReconnectLatencyMs() {
+        return TimeUnit.NANOSECONDS.toMillis(lastReconnectLatencyNanos);
+    }
+
+    public long getMaxReconnectLatencyMs() {
+        return TimeUnit.NANOSECONDS.toMillis(maxReconnectLatencyNanos);
     }
 
-    // Stop the ping timer
-    private void stopPingTimer() {
-        if (pingTimer != null) {
-            pingTimer.cancel();
-            pingTimer = null;
+    public int getReconnectCount() {
+        return reconnectCount.get();
+    }
+
+    // Bytes queued in the client but not yet written to the socket.
+    // The client's onWriteDemand is final and does nothing, so this is the only view of its backlog.
+    public long getBufferedAmount() {
+        WebSocket connection = getConnection();
+        if (!(connection instanceof WebSocketImpl) || !((WebSocketImpl) connection).hasBufferedData()) {
+            return 0;
+        }
+        long total = 0;
+        for (ByteBuffer buffer : ((WebSocketImpl) connection).outQueue) {
+            total += buffer.remaining();
         }
+        return total;
     }
 
-    // Attempt to reconnect after a delay
-    private void attemptReconnect() {
-        if (reconnectAttempts.incrementAndGet() <= MAX_RECONNECT_ATTEMPTS) {
-            new Timer().schedule(new TimerTask() {
-                @Override
-                public void run() {
-                    try{
-                        reconnect();
-                    }
-                    catch (Exception e){
-                        webSocketListener.onWebsocketError(SimpleWebSocket.this , e);
-                    }
-                }
-            }, RECONNECT_DELAY);
-        } else {
-            webSocketListener.onWebsocketError(this, new Exception("Max reconnect attempts reached"));
+    private void recordReconnectLatency() {
+        long lost = linkLostNanos;
+        if (lost == 0) {
+            return;
+        }
+        linkLostNanos = 0;
+        long latency = System.nanoTime() - lost;
+        lastReconnectLatencyNanos = latency;
+        if (latency > maxReconnectLatencyNanos) {
+            maxReconnectLatencyNanos = latency;
         }
+        reconnectCount.incrementAndGet();
     }
 
     public boolean isOpen() {
@@ -176,16 +231,14 @@ public class SimpleWebSocket extends WebSocketClient {
         return super.isClosing();
     }
 
-    // Method to reconnect the WebSocket
+    // Method to reconnect the WebSocket; the library resets its threads first, a plain close() + connect()
+    // fails because a WebSocketClient can't be connected twice
     public void reconnect() {
-        close();
-        connect();
+        super.reconnect();
     }
 
     // Blocking reconnect method
     public boolean reconnectBlocking() throws InterruptedException {
-        closeBlocking();
-        connectBlocking();
-        return isOpen();
+        return super.reconnectBlocking();
     }
 }
\ No newline at end of file
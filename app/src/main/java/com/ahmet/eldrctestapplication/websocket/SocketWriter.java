@@ -0,0 +1,380 @@
+package com.ahmet.eldrctestapplication.websocket;
+
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Component;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Dedicated writer thread fed by a latest-value-wins mailbox with one slot per {@link Component}.
+ * Posting never blocks: a newer command simply replaces the one still waiting in its slot,
+ * so a slow link drops stale setpoints instead of queueing them up behind each other.
+ * Other traffic goes through a bounded {@link OutboundQueue} drained after the mailbox, followed by
+ * {@link BulkSource}s such as chunked content, which produce one packet each time the writer asks.
+ * Queue and sources share a burst limit per round and stop at the backpressure watermark, so a
+ * large transfer never sits ahead of motor commands in the socket.
+ * Safety commands (see {@link SendPriority}) have a lane of their own that is checked before every
+ * single write, so a brake waits for at most one packet already being written.
+ *
+ * With a backpressure probe set, nothing but safety commands is written while the client already
+ * buffers more than the high watermark; the mailbox keeps replacing and the queue applies its overflow
+ * policy until the link catches up. The watermark is also what bounds the backlog a brake queues behind.
+ *
+ * Every packet posted here carries the time it was posted. Control and bulk packets older than the maximum age
+ * are dropped at the writer instead of sent, so a stall never ends with the robot executing an old
+ * drive command; safety commands are always sent. The age of every written packet is recorded.
+ * Packets the manager sends directly, e.g. READ/WRITE requests, bypass the writer and are not aged.
+ *
+ * A writer either runs its own thread or is drained by a {@link WriterPool} shared with other connections.
+ */
+public class SocketWriter implements Runnable {
+
+    // Pull based bulk traffic, called on the writer thread only when the bulk lane has room
+    public interface BulkSource {
+        // Sends the next packet; returns false, without sending, once the source is exhausted
+        boolean sendNext();
+    }
+
+    public static final long DEFAULT_HIGH_WATERMARK_BYTES = 8 * 1024;
+    public static final long DEFAULT_MAX_AGE_MS = 250;
+
+    // The client has no "drained" callback (its onWriteDemand is final and empty), so the buffered
+    // amount is polled at this interval while above the watermark. Below it the writer parks until posted to.
+    private static final long BACKPRESSURE_POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(2);
+
+    private static final int SAFETY_LANE_CAPACITY = 16;
+    // Bulk packets written per step, keeps one busy connection from starving the others in a pool
+    static final int BULK_BURST = 8;
+
+    // Results of step()
+    static final int IDLE = 0;
+    static final int BUSY = 1;
+    static final int BACKPRESSURED = 2;
+
+    private final AtomicReferenceArray<OutboundPacket> mailbox = new AtomicReferenceArray<>(Component.values().length);
+    private final OutboundQueue safetyLane = new OutboundQueue(SAFETY_LANE_CAPACITY, OutboundQueue.OverflowPolicy.COALESCE);
+    private final OutboundQueue queue;
+    private final ConcurrentLinkedQueue<BulkSource> sources = new ConcurrentLinkedQueue<>();
+    private final Consumer<String> sender;
+    private final Consumer<String> urgentSender;
+    private volatile LongSupplier bufferedBytes;
+    private volatile long highWatermarkBytes = DEFAULT_HIGH_WATERMARK_BYTES;
+    private volatile long maxAgeNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_MAX_AGE_MS);
+    private final Thread thread;
+    private final WriterPool pool;
+    private final AtomicBoolean signalled = new AtomicBoolean();
+    private volatile boolean running = true;
+
+    private final AtomicLong postedCount = new AtomicLong();
+    private final AtomicLong replacedCount = new AtomicLong();
+    private final AtomicLong sentCount = new AtomicLong();
+    private final AtomicLong safetySentCount = new AtomicLong();
+    private final AtomicLong backpressureWaits = new AtomicLong();
+    private final AtomicLong staleDroppedCount = new AtomicLong();
+    // Time from posting until the write, microseconds
+    private final LatencyHistogram ageAtSend = new LatencyHistogram();
+
+    public SocketWriter(String name, Consumer<String> sender) {
+        this(name, new OutboundQueue(), sender);
+    }
+
+    public SocketWriter(String name, OutboundQueue queue, Consumer<String> sender) {
+        this(name, queue, sender, sender);
+    }
+
+    // Safety commands go through urgentSender. It must not wait for any batching done by sender, and
+    // nothing handed to sender earlier may reach the socket after it (see PacketBatcher.sendAhead).
+    public SocketWriter(String name, OutboundQueue queue, Consumer<String> sender, Consumer<String> urgentSender) {
+        this.queue = queue;
+        this.sender = sender;
+        this.urgentSender = urgentSender;
+        this.pool = null;
+        this.thread = new Thread(this, name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    // Drained by the pool's thread instead of a thread of its own
+    public SocketWriter(WriterPool pool, OutboundQueue queue, Consumer<String> sender, Consumer<String> urgentSender) {
+        this.queue = queue;
+        this.sender = sender;
+        this.urgentSender = urgentSender;
+        this.pool = pool;
+        this.thread = pool.getThread();
+        pool.add(this);
+    }
+
+    // Replaces any command still waiting for the same component, callable from any thread
+    public void post(Component component, String packet) {
+        post(component, new OutboundPacket(packet, System.nanoTime()));
+    }
+
+    public void post(Component component, OutboundPacket packet) {
+        postedCount.incrementAndGet();
+        if (mailbox.getAndSet(component.ordinal(), packet) != null) {
+            replacedCount.incrementAndGet();
+        }
+        signal();
+    }
+
+    // Sends ahead of everything else. A setpoint still waiting for the component is discarded,
+    // it was posted before this command and must not go out after it. Setpoints already handed to
+    // the sender are the urgent sender's job, WebSocketManager drops them from its batch.
+    public void postSafety(Component component, String packet) {
+        postSafety(component, new OutboundPacket(packet, System.nanoTime()));
+    }
+
+    public void postSafety(Component component, OutboundPacket packet) {
+        postedCount.incrementAndGet();
+        if (mailbox.getAndSet(component.ordinal(), null) != null) {
+            replacedCount.incrementAndGet();
+        }
+        safetyLane.offer(component, packet);
+        signal();
+    }
+
+    // Routes the packet to the lane of the given priority
+    public void post(SendPriority priority, Component component, String packet) {
+        post(priority, component, new OutboundPacket(packet, System.nanoTime()));
+    }
+
+    // Variant for callers that stamped the packet themselves, e.g. when the input event arrived
+    public void post(SendPriority priority, Component component, OutboundPacket packet) {
+        switch (priority) {
+            case SAFETY:
+                postSafety(component, packet);
+                break;
+            case CONTROL:
+                post(component, packet);
+                break;
+            default:
+                postedCount.incrementAndGet();
+                queue.offer(component, packet);
+                signal();
+                break;
+        }
+    }
+
+    // Appends to the bounded queue, returns false when the overflow policy dropped this packet
+    public boolean enqueue(String packet) {
+        postedCount.incrementAndGet();
+        boolean queued = queue.offer(packet);
+        signal();
+        return queued;
+    }
+
+    // Like enqueue(String), the component lets the COALESCE policy replace an older packet for it
+    public boolean enqueue(Component component, String packet) {
+        postedCount.incrementAndGet();
+        boolean queued = queue.offer(component, packet);
+        signal();
+        return queued;
+    }
+
+    // Appends a source behind the ones already streaming, it is drained after the bulk queue
+    public void stream(BulkSource source) {
+        sources.add(source);
+        signal();
+    }
+
+    // Sources not yet exhausted, the one streaming right now included
+    public int getStreamCount() {
+        return sources.size();
+    }
+
+    // Holds writes while bufferedBytes reports more than highWatermarkBytes, null turns it off
+    public void setBackpressure(LongSupplier bufferedBytes, long highWatermarkBytes) {
+        this.bufferedBytes = bufferedBytes;
+        this.highWatermarkBytes = highWatermarkBytes;
+        signal();
+    }
+
+    // Control and bulk packets older than this are dropped instead of sent, 0 disables the check
+    public void setMaxAge(long maxAge, TimeUnit unit) {
+        this.maxAgeNanos = unit.toNanos(maxAge);
+    }
+
+    public long getMaxAgeMs() {
+        return TimeUnit.NANOSECONDS.toMillis(maxAgeNanos);
+    }
+
+    public OutboundQueue getQueue() {
+        return queue;
+    }
+
+    public void stop() {
+        running = false;
+        if (pool != null) {
+            pool.remove(this);
+        } else {
+            LockSupport.unpark(thread);
+        }
+    }
+
+    public long getPostedCount() {
+        return postedCount.get();
+    }
+
+    // Commands overwritten by a newer one before the writer got to them
+    public long getReplacedCount() {
+        return replacedCount.get();
+    }
+
+    public long getSentCount() {
+        return sentCount.get();
+    }
+
+    public long getSafetySentCount() {
+        return safetySentCount.get();
+    }
+
+    // Packets dropped for being older than the maximum age
+    public long getStaleDroppedCount() {
+        return staleDroppedCount.get();
+    }
+
+    // Age of every written packet in microseconds, from posting until the sender returned
+    public LatencyHistogram getAgeAtSendHistogram() {
+        return ageAtSend;
+    }
+
+    // Times the writer found the client over the high watermark and waited
+    public long getBackpressureWaits() {
+        return backpressureWaits.get();
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            int state = step();
+            if (state == BACKPRESSURED) {
+                LockSupport.parkNanos(this, BACKPRESSURE_POLL_NANOS);
+            } else if (state == IDLE) {
+                LockSupport.park(this);
+            }
+        }
+    }
+
+    // One round over all lanes: IDLE when nothing is left, BACKPRESSURED when waiting for the client to drain
+    int step() {
+        signalled.set(false);
+        boolean sent = drainSafetyLane();
+        if (isBackpressured()) {
+            backpressureWaits.incrementAndGet();
+            return BACKPRESSURED;
+        }
+        return drain() || sent || queue.size() > 0 || !sources.isEmpty() ? BUSY : IDLE;
+    }
+
+    static long backpressurePollNanos() {
+        return BACKPRESSURE_POLL_NANOS;
+    }
+
+    // Safety commands are re-checked before every other write
+    private boolean drain() {
+        boolean sent = drainMailbox();
+        // Queued packets, then sources, stop at the watermark or the burst; the rest waits for the next round.
+        // Control commands posted meanwhile still go before the next bulk packet.
+        for (int burst = 0; burst < BULK_BURST && !isBackpressured(); burst++) {
+            sent |= drainMailbox();
+            drainSafetyLane();
+            OutboundPacket packet = queue.poll();
+            if (packet != null) {
+                send(packet);
+            } else if (!sendFromSource()) {
+                break;
+            }
+            sent = true;
+        }
+        return sent;
+    }
+
+    private boolean drainMailbox() {
+        boolean sent = false;
+        for (int i = 0; i < mailbox.length(); i++) {
+            if (mailbox.get(i) == null) {
+                continue;
+            }
+            drainSafetyLane();
+            OutboundPacket packet = mailbox.getAndSet(i, null);
+            if (packet != null) {
+                send(packet);
+                sent = true;
+            }
+        }
+        return sent;
+    }
+
+    // Written packets of a source are counted as sent but have no age, they are encoded on demand
+    private boolean sendFromSource() {
+        BulkSource source;
+        while ((source = sources.peek()) != null) {
+            boolean more;
+            try {
+                more = source.sendNext();
+            } catch (RuntimeException e) {
+                // A failing source is dropped, the writer has to keep running
+                more = false;
+            }
+            if (more) {
+                sentCount.incrementAndGet();
+                return true;
+            }
+            sources.remove(source);
+        }
+        return false;
+    }
+
+    private boolean drainSafetyLane() {
+        boolean sent = false;
+        OutboundPacket packet;
+        while ((packet = safetyLane.poll()) != null) {
+            try {
+                urgentSender.accept(packet.packet);
+            } catch (RuntimeException ignored) {
+                // Same as send(), failures are reported by the sender
+            }
+            recordAge(packet);
+            safetySentCount.incrementAndGet();
+            sentCount.incrementAndGet();
+            sent = true;
+        }
+        return sent;
+    }
+
+    private void send(OutboundPacket packet) {
+        long maxAge = maxAgeNanos;
+        if (maxAge > 0 && packet.ageNanos(System.nanoTime()) > maxAge) {
+            staleDroppedCount.incrementAndGet();
+            return;
+        }
+        try {
+            sender.accept(packet.packet);
+        } catch (RuntimeException ignored) {
+            // The sender reports its own failures, the writer has to keep running
+        }
+        recordAge(packet);
+        sentCount.incrementAndGet();
+    }
+
+    private void recordAge(OutboundPacket packet) {
+        ageAtSend.record(TimeUnit.NANOSECONDS.toMicros(packet.ageNanos(System.nanoTime())));
+    }
+
+    private boolean isBackpressured() {
+        LongSupplier probe = bufferedBytes;
+        return probe != null && probe.getAsLong() > highWatermarkBytes;
+    }
+
+    private void signal() {
+        if (signalled.compareAndSet(false, true)) {
+            LockSupport.unpark(thread);
+        }
+    }
+}
@@ -1,7 +1,17 @@
 package com.ahmet.eldrctestapplication.websocket;
 
+import com.ahmet.eldrctestapplication.communication.BinaryPacketCodec;
+import com.ahmet.eldrctestapplication.communication.BinaryTranscoder;
+import com.ahmet.eldrctestapplication.communication.MessageChunker;
+import com.ahmet.eldrctestapplication.communication.MessageReassembler;
+import com.ahmet.eldrctestapplication.communication.PacketDecoder;
+import com.ahmet.eldrctestapplication.communication.PacketEncoder;
+import com.ahmet.eldrctestapplication.communication.PacketHandler;
+import com.ahmet.eldrctestapplication.communication.RequestTracker;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder;
 import com.ahmet.eldrctestapplication.log.LogAdapter;
 import com.ahmet.eldrctestapplication.log.LogEntry;
+import com.ahmet.eldrctestapplication.log.Logger;
 
 import org.java_websocket.WebSocket;
 import org.java_websocket.WebSocketListener;
@@ -9,6 +19,7 @@ import org.java_websocket.drafts.Draft;
 import org.java_websocket.exceptions.InvalidDataException;
 import org.java_websocket.framing.Framedata;
 import org.java_websocket.framing.PingFrame;
+import org.java_websocket.framing.TextFrame;
 import org.java_websocket.handshake.ClientHandshake;
 import org.java_websocket.handshake.Handshakedata;
 import org.java_websocket.handshake.ServerHandshake;
@@ -18,7 +29,7 @@ import java.net.InetSocketAddress;
 import java.net.URISyntaxException;
 import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
@@ -29,88 +40,228 @@ import java.util.concurrent.TimeUnit;
  */
 public class WebSocketManager implements WebSocketListener {
 
+    // Packet encoding used on this connection, ASCII is what the robot firmware speaks by default.
+    // With BINARY every outbound packet goes out as a BinaryPacketCodec binary frame: sendPacket encodes
+    // directly, everything built as ASCII (postCommand and queueMessage Strings, requests, sendContent
+    // chunks, batched frames) is transcoded on its way to the socket. Text that is not a protocol packet
+    // can't be sent in BINARY and is dropped with an error. Inbound binary frames are decoded with
+    // BinaryPacketCodec, inbound text frames are always decoded as ASCII.
+    public enum WireFormat {
+        ASCII,
+        BINARY
+    }
+
     private SimpleWebSocket webSocket;
-    private LogAdapter logAdapter;
-    private static final int CONNECTION_TIMEOUT = 5000;
-    // Executor for sending messages at fixed intervals
-    private ScheduledExecutorService messageSenderExecutor;
-    private static final int MESSAGE_SEND_INTERVAL = 10; // 10 milliseconds
-
-    private int messageCount = 0;
-
-    // Start sending messages at regular intervals
-    public void startMessageSender(int interval) {
-        messageSenderExecutor = Executors.newSingleThreadScheduledExecutor();
-        messageSenderExecutor.scheduleWithFixedDelay(() -> {
-            if (webSocket.isOpen()) {
-                messageCount++;
-                sendMessage("Ahmet TOPAK: " + messageCount); // Replace with your message
-            }
-        }, 0, interval, TimeUnit.MILLISECONDS);
-    }
-    public void startMessageSender(int interval , String prefix) {
-        messageSenderExecutor = Executors.newSingleThreadScheduledExecutor();
-        messageSenderExecutor.scheduleWithFixedDelay(() -> {
-            if (webSocket.isOpen()) {
-                messageCount++;
-                sendMessage(prefix + messageCount); // Replace with your message
-            }
-        }, 0, interval, TimeUnit.MILLISECONDS);
+    // TX and RX carry the per packet lines, logged at TRACE so they cost nothing at the default level
+    public static final String LOG_TAG = "WebSocket";
+    public static final String TX_LOG_TAG = "WebSocket.TX";
+    public static final String RX_LOG_TAG = "WebSocket.RX";
+
+    private final Logger log;
+    private final Logger txLog;
+    private final Logger rxLog;
+    // Timestamped pings for round trip time and liveness, runs while the socket is open
+    private LinkProbe linkProbe;
+    private volatile LinkProbe.LinkLostListener linkLostListener;
+    // Parses inbound frames, only touched from the WebSocket read thread
+    private final PacketDecoder packetDecoder = new PacketDecoder();
+    // Matches READ/WRITE requests with their ANSWER/ACK replies
+    private final RequestTracker requestTracker;
+    // Decodes inbound binary frames when the BINARY wire format is selected
+    private final BinaryPacketCodec binaryCodec = new BinaryPacketCodec();
+    // Turns outbound ASCII into binary frames when the BINARY wire format is selected
+    private final BinaryTranscoder transcoder = new BinaryTranscoder();
+    private volatile WireFormat wireFormat = WireFormat.ASCII;
+    // Rebuilds chunked MESSAGE content from inbound packets
+    private final MessageReassembler messageReassembler = new MessageReassembler();
+    // Drains the per-component command mailbox so callers never block on the socket
+    private final SocketWriter socketWriter;
+    // Time from the readParameter/writeParameter call until the reply, in microseconds
+    private final LatencyHistogram ageAtAck = new LatencyHistogram();
+    // Set while batching is enabled, packets are then coalesced into shared frames
+    private volatile PacketBatcher batcher;
+    // Timers for request timeouts and batch flushes, shared with every other connection
+    private final ScheduledExecutorService scheduler = WebSocketScheduler.get();
+    // Test traffic, replaces the old fixed delay message sender
+    private final LoadGenerator loadGenerator = new LoadGenerator(this);
+
+    // Starts open loop test traffic at the given rate with the given motor/write/read mix,
+    // a running load is restarted with the new settings
+    public LoadGenerator startLoad(double packetsPerSecond, int motorWeight, int writeWeight, int readWeight) {
+        loadGenerator.stop();
+        loadGenerator.setRate(packetsPerSecond);
+        loadGenerator.setMix(motorWeight, writeWeight, readWeight);
+        loadGenerator.start();
+        return loadGenerator;
     }
 
-    // Stop sending messages
-    public void stopMessageSender() {
-        if (messageSenderExecutor != null && !messageSenderExecutor.isShutdown()) {
-            messageSenderExecutor.shutdown();
-        }
+    // Stops the test traffic and returns throughput, latency and error counts of the run
+    public LoadGenerator.Report stopLoad() {
+        LoadGenerator.Report report = loadGenerator.stop();
+        log.info("Load: {}", report);
+        return report;
+    }
+
+    public LoadGenerator getLoadGenerator() {
+        return loadGenerator;
     }
 
     public WebSocketManager(String url, LogAdapter logAdapter) {
-        this.logAdapter = logAdapter;
+        this(url, logAdapter, null);
+    }
+
+    // With a pool the writer shares the pool's thread, otherwise it gets a thread of its own
+    public WebSocketManager(String url, LogAdapter logAdapter, WriterPool writerPool) {
+        this.log = new Logger(LOG_TAG, logAdapter);
+        this.txLog = new Logger(TX_LOG_TAG, logAdapter);
+        this.rxLog = new Logger(RX_LOG_TAG, logAdapter);
+        this.socketWriter = writerPool != null
+                ? new SocketWriter(writerPool, new OutboundQueue(), this::sendMessage, this::sendUrgent)
+                : new SocketWriter("SocketWriter", new OutboundQueue(), this::sendMessage, this::sendUrgent);
+        this.requestTracker = new RequestTracker(RobotMessageBuilder.Transmitter.MASTER, this::sendRequest, scheduler);
+        requestTracker.setReplyListener(this::onReply);
+        packetDecoder.addHandler(requestTracker);
+        packetDecoder.addHandler(messageReassembler);
         try {
             webSocket = new SimpleWebSocket(url, this);
-            webSocket.setConnectionLostTimeout(CONNECTION_TIMEOUT);
+            linkProbe = new LinkProbe(webSocket);
+            socketWriter.setBackpressure(webSocket::getBufferedAmount, SocketWriter.DEFAULT_HIGH_WATERMARK_BYTES);
+            linkProbe.setLinkLostListener(this::onLinkLost);
+            // Liveness is LinkProbe's job, the library timer (in seconds) would only duplicate it
+            webSocket.setConnectionLostTimeout(0);
         } catch (URISyntaxException e) {
-            logAdapter.log(LogEntry.LogType.ERROR, "WebSocket URI Syntax Error: " + e.getMessage());
+            log.error("WebSocket URI Syntax Error: " + e.getMessage());
         } catch (Exception e) {
-            logAdapter.log(LogEntry.LogType.ERROR, "Unexpected Error during WebSocket initialization: " + e.getMessage());
+            log.error("Unexpected Error during WebSocket initialization: " + e.getMessage());
         }
     }
 
     public void connect() {
         if (webSocket != null) {
             try {
+                webSocket.setAutoReconnect(true);
                 webSocket.connect();
             } catch (Exception e) {
-                logAdapter.log(LogEntry.LogType.ERROR, "Failed to connect WebSocket: " + e.getMessage());
+                log.error("Failed to connect WebSocket: " + e.getMessage());
             }
         } else {
-            logAdapter.log(LogEntry.LogType.ERROR, "WebSocket instance is null");
+            log.error("WebSocket instance is null");
         }
     }
     public void disconnect() {
         if (webSocket != null) {
             try {
+                webSocket.setAutoReconnect(false);
                 webSocket.close(1000, "User disconnected");
-                logAdapter.log(LogEntry.LogType.INFO, "WebSocket disconnected");
+                log.info("WebSocket disconnected");
             } catch (Exception e) {
-                logAdapter.log(LogEntry.LogType.ERROR, "Failed to disconnect WebSocket: " + e.getMessage());
+                log.error("Failed to disconnect WebSocket: " + e.getMessage());
             }
         } else {
-            logAdapter.log(LogEntry.LogType.ERROR, "WebSocket instance is null");
+            log.error("WebSocket instance is null");
         }
     }
 
+    // Queues a command for the writer thread and returns immediately.
+    // Only the newest command per component is kept, older unsent ones are replaced.
+    // OUT_BRAKE and OUT_POWER commands go in the safety lane and are sent before anything else.
+    public void postCommand(RobotMessageBuilder.Component component, String packet) {
+        socketWriter.post(SendPriority.of(component), component, packet);
+    }
+
+    public void postCommand(RobotMessageBuilder.Component component, String packet, SendPriority priority) {
+        socketWriter.post(priority, component, packet);
+    }
+
+    // Queues a packet behind the mailbox commands, bounded by the outbound queue's capacity.
+    // Returns false when the overflow policy dropped it.
+    public boolean queueMessage(String packet) {
+        return socketWriter.enqueue(packet);
+    }
+
+    // Like queueMessage(String), the COALESCE policy keeps only the newest queued packet per component
+    public boolean queueMessage(RobotMessageBuilder.Component component, String packet) {
+        return socketWriter.enqueue(component, packet);
+    }
+
+    public void setQueuePolicy(OutboundQueue.OverflowPolicy policy) {
+        socketWriter.getQueue().setPolicy(policy);
+    }
+
+    // Writes pause while the client buffers more than this many bytes
+    public void setSendHighWatermark(long bytes) {
+        if (webSocket != null) {
+            socketWriter.setBackpressure(webSocket::getBufferedAmount, bytes);
+        }
+    }
+
+    public int getQueueDepth() {
+        return socketWriter.getQueue().size();
+    }
+
+    public long getQueueDroppedCount() {
+        return socketWriter.getQueue().getDroppedCount();
+    }
+
+    public long getBufferedAmount() {
+        return webSocket != null ? webSocket.getBufferedAmount() : 0;
+    }
+
+    public SocketWriter getSocketWriter() {
+        return socketWriter;
+    }
+
+    // Stops the writer thread and any pending reconnect, the manager can't be used afterwards
+    public void shutdown() {
+        loadGenerator.stop();
+        socketWriter.stop();
+        if (linkProbe != null) {
+            linkProbe.stop();
+        }
+        if (webSocket != null) {
+            webSocket.setAutoReconnect(false);
+        }
+    }
+
+    // Sends on the caller's thread (or into the batch). Not stamped or aged, commands that must never
+    // go out stale belong in postCommand or queueMessage.
     public void sendMessage(String message) {
         if (webSocket != null && webSocket.isOpen()) {
             try {
-                webSocket.send(message);
-                logAdapter.log(LogEntry.LogType.INFO, "Sent message: " + message);
+                PacketBatcher currentBatcher = batcher;
+                if (currentBatcher != null) {
+                    // Goes out with the next batch frame, which is logged when it is sent
+                    currentBatcher.add(message);
+                    txLog.trace("Batched message: {}", message);
+                } else {
+                    sendText(message);
+                    txLog.trace("Sent message: {}", message);
+                }
             } catch (Exception e) {
-                logAdapter.log(LogEntry.LogType.ERROR, "Failed to send message: " + e.getMessage());
+                log.error("Failed to send message: " + e.getMessage());
             }
         } else {
-            logAdapter.log(LogEntry.LogType.ERROR, "WebSocket is not connected");
+            log.error("WebSocket is not connected");
+        }
+    }
+
+    // Safety lane writes never wait for a batch window. Batched setpoints for the same component are
+    // dropped and the rest of the batch is flushed first, so no older command goes out after this one.
+    private void sendUrgent(String message) {
+        if (webSocket != null && webSocket.isOpen()) {
+            try {
+                PacketBatcher currentBatcher = batcher;
+                if (currentBatcher != null) {
+                    currentBatcher.sendAhead(PacketBatcher.componentOf(message), () -> sendText(message));
+                } else {
+                    sendText(message);
+                }
+                txLog.trace("Sent safety message: {}", message);
+            } catch (Exception e) {
+                log.error("Failed to send safety message: " + e.getMessage());
+            }
+        } else {
+            log.error("WebSocket is not connected");
         }
     }
 
@@ -118,12 +269,332 @@ public class WebSocketManager implements WebSocketListener {
         if (webSocket != null && webSocket.isOpen()) {
             try {
                 webSocket.send(message);
-                logAdapter.log(LogEntry.LogType.INFO, "Sent byte message");
+                txLog.trace("Sent byte message");
+            } catch (Exception e) {
+                log.error("Failed to send byte message: " + e.getMessage());
+            }
+        } else {
+            log.error("WebSocket is not connected");
+        }
+    }
+
+    // Sends the bytes between position and limit as a binary frame, e.g. a packet from BinaryPacketCodec.
+    // Like sendPacket the payload is copied before returning and nothing is logged on success.
+    // Returns false when the frame could not be sent.
+    public boolean sendByteMessage(ByteBuffer message) {
+        if (webSocket != null && webSocket.isOpen()) {
+            try {
+                webSocket.send(message);
+                return true;
+            } catch (Exception e) {
+                log.error("Failed to send byte message: " + e.getMessage());
+            }
+        } else {
+            log.error("WebSocket is not connected");
+        }
+        return false;
+    }
+
+    // Encodes with the selected wire format and sends, ASCII as a text frame and BINARY as a binary frame.
+    // Returns false when the packet could not be sent, the failure is logged.
+    public boolean sendPacket(RobotMessageBuilder.Transmitter transmitter, RobotMessageBuilder.Receiver receiver,
+                              RobotMessageBuilder.Process process, RobotMessageBuilder.Component component,
+                              RobotMessageBuilder.Index index, int... data) {
+        ByteBuffer buffer = PacketEncoder.acquire();
+        try {
+            if (wireFormat == WireFormat.BINARY) {
+                BinaryPacketCodec.encode(buffer, transmitter, receiver, process, component, index, data);
+                buffer.flip();
+                return sendByteMessage(buffer);
+            } else {
+                PacketEncoder.encode(buffer, transmitter, receiver, process, component, index, data);
+                buffer.flip();
+                return sendPacket(buffer);
+            }
+        } finally {
+            PacketEncoder.release(buffer);
+        }
+    }
+
+    // See WireFormat
+    public void setWireFormat(WireFormat wireFormat) {
+        this.wireFormat = wireFormat;
+    }
+
+    public WireFormat getWireFormat() {
+        return wireFormat;
+    }
+
+    // Sends the ASCII bytes between position and limit, e.g. a packet from PacketEncoder, as a text frame
+    // (a binary frame with the BINARY wire format).
+    // The payload is copied into the frame before returning so the buffer can be reused right away.
+    // Encoding allocates nothing, but each send still costs a TextFrame and the library's copy into
+    // a new wire buffer. Nothing is logged on success so that is all it costs.
+    // Returns false when the packet could not be sent or batched.
+    public boolean sendPacket(ByteBuffer packet) {
+        if (webSocket != null && webSocket.isOpen()) {
+            try {
+                PacketBatcher currentBatcher = batcher;
+                if (currentBatcher != null) {
+                    currentBatcher.add(packet);
+                    return true;
+                }
+                return sendText(packet);
             } catch (Exception e) {
-                logAdapter.log(LogEntry.LogType.ERROR, "Failed to send byte message: " + e.getMessage());
+                log.error("Failed to send packet: " + e.getMessage());
             }
         } else {
-            logAdapter.log(LogEntry.LogType.ERROR, "WebSocket is not connected");
+            log.error("WebSocket is not connected");
+        }
+        return false;
+    }
+
+    // Sender of the request tracker. Unlike sendPacket it throws when the packet can't be sent,
+    // so a request on a closed socket fails right away instead of waiting out its timeout.
+    private void sendRequest(ByteBuffer packet) {
+        if (webSocket == null || !webSocket.isOpen()) {
+            throw new IllegalStateException("WebSocket is not connected");
+        }
+        PacketBatcher currentBatcher = batcher;
+        if (currentBatcher != null) {
+            currentBatcher.add(packet);
+        } else {
+            sendText(packet);
+        }
+    }
+
+    // Streams the content between position and limit as chunked MESSAGE packets through the writer's
+    // bulk lane. Chunks are encoded one at a time when the lane has room, at most a burst per round and
+    // never past the backpressure watermark, so motor commands keep going out during a large transfer.
+    // The content must not change until the returned future completes with the transfer id; it fails
+    // when the socket closes before the last chunk was written.
+    public CompletableFuture<Integer> sendContent(RobotMessageBuilder.Receiver receiver, RobotMessageBuilder.Component component,
+                                                  RobotMessageBuilder.Index index, int parameter, ByteBuffer content) {
+        MessageChunker.Transfer transfer = MessageChunker.open(RobotMessageBuilder.Transmitter.MASTER, receiver,
+                component, index, parameter, content, MessageChunker.DEFAULT_CHUNK_SIZE);
+        CompletableFuture<Integer> done = new CompletableFuture<>();
+        socketWriter.stream(() -> sendNextChunk(transfer, done));
+        return done;
+    }
+
+    private boolean sendNextChunk(MessageChunker.Transfer transfer, CompletableFuture<Integer> done) {
+        if (!transfer.hasNext()) {
+            done.complete(transfer.getTransferId());
+            return false;
+        }
+        if (!isSocketOpen()) {
+            done.completeExceptionally(new IllegalStateException("WebSocket closed during transfer "
+                    + transfer.getTransferId() + " at chunk " + transfer.getSequence() + "/" + transfer.getTotal()));
+            return false;
+        }
+        ByteBuffer packet = PacketEncoder.acquire();
+        try {
+            transfer.encodeNext(packet);
+            packet.flip();
+            sendPacket(packet);
+        } finally {
+            PacketEncoder.release(packet);
+        }
+        return true;
+    }
+
+    // Called on the WebSocket read thread once all chunks of a MESSAGE transfer arrived
+    public void setMessageListener(MessageReassembler.MessageListener listener) {
+        messageReassembler.setListener(listener);
+    }
+
+    // Coalesces packets sent within the window (or up to maxBytes) into a single frame
+    public void enableBatching(long windowMs, int maxBytes) {
+        PacketBatcher previous = batcher;
+        batcher = new PacketBatcher(windowMs, TimeUnit.MILLISECONDS, maxBytes, scheduler, this::sendBatch);
+        if (previous != null) {
+            previous.flush();
+        }
+    }
+
+    // Sends anything still batched and goes back to one frame per packet
+    public void disableBatching() {
+        PacketBatcher previous = batcher;
+        batcher = null;
+        if (previous != null) {
+            previous.flush();
+        }
+    }
+
+    public boolean isBatching() {
+        return batcher != null;
+    }
+
+    private void sendBatch(ByteBuffer frame) {
+        if (webSocket != null && webSocket.isOpen()) {
+            try {
+                int length = frame.remaining();
+                sendText(frame);
+                txLog.trace("Sent batch: {} bytes", length);
+            } catch (Exception e) {
+                log.error("Failed to send batch: " + e.getMessage());
+            }
+        }
+    }
+
+    // Every ASCII packet or batch ends up here. With the BINARY wire format it is transcoded and sent as
+    // one binary frame; binary is never longer than ASCII, so a pooled buffer holds any single packet.
+    // Returns false when the text is not a protocol packet and was dropped.
+    private boolean sendText(ByteBuffer packets) {
+        if (wireFormat != WireFormat.BINARY) {
+            sendTextFrame(packets);
+            return true;
+        }
+        int length = packets.remaining();
+        ByteBuffer binary = length <= PacketEncoder.MAX_PACKET_SIZE ? PacketEncoder.acquire() : ByteBuffer.allocate(length);
+        try {
+            if (!transcoder.transcode(packets, binary)) {
+                log.error("Not a protocol packet, dropped in the BINARY wire format: "
+                        + StandardCharsets.UTF_8.decode(packets.duplicate()));
+                return false;
+            }
+            binary.flip();
+            webSocket.send(binary);
+            return true;
+        } finally {
+            PacketEncoder.release(binary);
+        }
+    }
+
+    private void sendText(String message) {
+        if (wireFormat != WireFormat.BINARY) {
+            webSocket.send(message);
+            return;
+        }
+        int length = message.length();
+        ByteBuffer ascii = length <= PacketEncoder.MAX_PACKET_SIZE ? PacketEncoder.acquire() : ByteBuffer.allocate(length);
+        try {
+            for (int i = 0; i < length; i++) {
+                char c = message.charAt(i);
+                // Protocol packets are ASCII, anything else fails the transcode
+                ascii.put(c < 0x80 ? (byte) c : (byte) '?');
+            }
+            ascii.flip();
+            sendText(ascii);
+        } finally {
+            PacketEncoder.release(ascii);
+        }
+    }
+
+    // A fresh frame per send: sendFrame queues the frame's bytes for the write thread, and the client
+    // may be called from several threads, so a shared frame would need a lock for no saved copy
+    private void sendTextFrame(ByteBuffer payload) {
+        TextFrame frame = new TextFrame();
+        frame.setPayload(payload);
+        frame.setFin(true);
+        webSocket.sendFrame(frame);
+    }
+
+    // Handlers are called on the WebSocket read thread for every decoded inbound packet
+    public void addPacketHandler(PacketHandler handler) {
+        packetDecoder.addHandler(handler);
+    }
+
+    public void removePacketHandler(PacketHandler handler) {
+        packetDecoder.removeHandler(handler);
+    }
+
+    // Sends a READ packet, the future completes with the value of the matching ANSWER
+    public CompletableFuture<Integer> readParameter(RobotMessageBuilder.Receiver receiver, RobotMessageBuilder.Component component,
+                                                    RobotMessageBuilder.Index index, int parameter) {
+        return requestTracker.read(receiver, component, index, parameter);
+    }
+
+    // Sends a WRITE packet, the future completes with the error code of the matching ACK
+    public CompletableFuture<Integer> writeParameter(RobotMessageBuilder.Receiver receiver, RobotMessageBuilder.Component component,
+                                                     RobotMessageBuilder.Index index, int parameter, int value) {
+        return requestTracker.write(receiver, component, index, parameter, value);
+    }
+
+    // Called on the read thread for every reply; the queue depth takes a lock, so only with TRACE on
+    private void onReply(int packetId, long elapsedNanos) {
+        long ageMicros = TimeUnit.NANOSECONDS.toMicros(elapsedNanos);
+        ageAtAck.record(ageMicros);
+        if (rxLog.isTraceEnabled()) {
+            rxLog.log(LogEntry.LogType.TRACE, "Reply", packetId, ageMicros, getQueueDepth());
+        }
+    }
+
+    // Age of commands posted to the writer when they were written, microseconds
+    public LatencyHistogram getAgeAtSendHistogram() {
+        return socketWriter.getAgeAtSendHistogram();
+    }
+
+    // Time from the readParameter/writeParameter call until the ANSWER/ACK arrived, microseconds.
+    // Requests are sent on the calling thread, so this is the round trip plus the socket queue.
+    public LatencyHistogram getAgeAtAckHistogram() {
+        return ageAtAck;
+    }
+
+    public long getStaleDroppedCount() {
+        return socketWriter.getStaleDroppedCount();
+    }
+
+    // Control and bulk packets waiting longer than this in the writer are dropped, 0 sends them
+    // regardless of age. Only postCommand and queueMessage traffic goes through the writer.
+    public void setMaxCommandAge(long maxAgeMs) {
+        socketWriter.setMaxAge(maxAgeMs, TimeUnit.MILLISECONDS);
+    }
+
+    public RequestTracker getRequestTracker() {
+        return requestTracker;
+    }
+
+    public PacketDecoder getPacketDecoder() {
+        return packetDecoder;
+    }
+
+    // Time the last reconnect took from losing the link until it was open again
+    public long getLastReconnectLatencyMs() {
+        return webSocket != null ? webSocket.getLastReconnectLatencyMs() : 0;
+    }
+
+    // Round trip times in microseconds, p50/p99/max via the histogram
+    public LatencyHistogram getRttHistogram() {
+        return linkProbe != null ? linkProbe.getRttHistogram() : null;
+    }
+
+    public long getLastRttMicros() {
+        return linkProbe != null ? linkProbe.getLastRttMicros() : -1;
+    }
+
+    // Ping rate for RTT measurement, applied when the socket (re)opens; 0 disables it
+    public void setPingInterval(long intervalMs) {
+        if (linkProbe != null) {
+            linkProbe.setInterval(intervalMs);
+            if (isSocketOpen()) {
+                linkProbe.start();
+            }
+        }
+    }
+
+    // Pings every intervalMs and declares the link dead after missThreshold unanswered ones in a row
+    public void setLiveness(long intervalMs, int missThreshold) {
+        if (linkProbe != null) {
+            linkProbe.setMissThreshold(missThreshold);
+        }
+        setPingInterval(intervalMs);
+    }
+
+    // Called on the scheduler thread the moment the link is declared dead, e.g. to stop the robot UI
+    public void setLinkLostListener(LinkProbe.LinkLostListener listener) {
+        this.linkLostListener = listener;
+    }
+
+    public long getLinkLostCount() {
+        return linkProbe != null ? linkProbe.getLinkLostCount() : 0;
+    }
+
+    private void onLinkLost(long silenceMs) {
+        log.error("Link lost: no reply for " + silenceMs + " ms");
+        LinkProbe.LinkLostListener listener = linkLostListener;
+        if (listener != null) {
+            listener.onLinkLost(silenceMs);
         }
     }
 
@@ -136,57 +607,77 @@ public class WebSocketManager implements WebSocketListener {
 
     @Override
     public void onWebsocketOpen(WebSocket conn, Handshakedata d) {
-        logAdapter.log(LogEntry.LogType.INFO, "WebSocket Opened");
+        packetDecoder.reset();
+        linkProbe.start();
+        log.info("WebSocket Opened");
     }
 
     @Override
     public void onWebsocketClose(WebSocket ws, int code, String reason, boolean remote) {
-        logAdapter.log(LogEntry.LogType.INFO, "WebSocket Closed: Code=" + code + ", Reason=" + reason + ", Remote=" + remote);
+        linkProbe.stop();
+        requestTracker.failAll(new IllegalStateException("WebSocket closed: " + code));
+        log.info("WebSocket Closed: Code=" + code + ", Reason=" + reason + ", Remote=" + remote);
     }
 
     @Override
     public void onWebsocketClosing(WebSocket ws, int code, String reason, boolean remote) {
-        logAdapter.log(LogEntry.LogType.INFO, "WebSocket Closing: Code=" + code + ", Reason=" + reason + ", Remote=" + remote);
+        log.info("WebSocket Closing: Code=" + code + ", Reason=" + reason + ", Remote=" + remote);
     }
 
     @Override
     public void onWebsocketMessage(WebSocket conn, String message) {
-        logAdapter.log(LogEntry.LogType.INFO, "WebSocket Message: " + message);
+        linkProbe.onActivity();
+        rxLog.trace("WebSocket Message: {}", message);
+        packetDecoder.feed(message);
     }
 
     @Override
     public void onWebsocketMessage(WebSocket conn, ByteBuffer blob) {
+        linkProbe.onActivity();
         try {
-            logAdapter.log(LogEntry.LogType.INFO, "WebSocket Binary Message: " + new String(blob.array(), StandardCharsets.UTF_8));
+            if (wireFormat == WireFormat.BINARY) {
+                binaryCodec.decode(blob, packetDecoder);
+            } else {
+                // Checked here so a disabled RX log costs no capturing lambda per frame
+                if (rxLog.isTraceEnabled()) {
+                    rxLog.trace("WebSocket Binary Message: {}", StandardCharsets.UTF_8.decode(blob.duplicate()));
+                }
+                packetDecoder.feed(blob);
+            }
         } catch (Exception e) {
-            logAdapter.log(LogEntry.LogType.ERROR, "Failed to process binary message: " + e.getMessage());
+            log.error("Failed to process binary message: " + e.getMessage());
         }
     }
 
     @Override
     public void onWebsocketError(WebSocket conn, Exception ex) {
-        logAdapter.log(LogEntry.LogType.ERROR, "WebSocket Error: " + ex.getMessage());
+        log.error("WebSocket Error: " + ex.getMessage());
     }
 
     @Override
     public void onWebsocketPong(WebSocket conn, Framedata f) {
-        logAdapter.log(LogEntry.LogType.DEBUG, "WebSocket Pong");
+        // Several pongs a second with the liveness probe, so only as structured TRACE entries
+        long rttMicros = linkProbe.onPong(f);
+        if (rttMicros >= 0 && rxLog.isTraceEnabled()) {
+            rxLog.log(LogEntry.LogType.TRACE, "Pong", LogEntry.NO_PACKET_ID, rttMicros, LogEntry.NO_QUEUE_DEPTH);
+        }
     }
 
     @Override
     public void onWebsocketPing(WebSocket conn, Framedata f) {
-        logAdapter.log(LogEntry.LogType.DEBUG, "WebSocket Ping");
+        log.debug("WebSocket Ping");
     }
 
     @Override
     public PingFrame onPreparePing(WebSocket conn) {
-        logAdapter.log(LogEntry.LogType.DEBUG, "WebSocket Prepare Ping");
+        log.debug("WebSocket Prepare Ping");
         return null;
     }
 
     @Override
     public void onWriteDemand(WebSocket conn) {
-        logAdapter.log(LogEntry.LogType.DEBUG, "WebSocket Write Demand");
+        // Never called for a client: WebSocketClient.onWriteDemand is final and empty. The writer learns
+        // that the backlog drained by polling getBufferedAmount() while it is above the high watermark.
     }
 
     @Override
@@ -196,28 +687,28 @@ public class WebSocketManager implements WebSocketListener {
 
     @Override
     public void onWebsocketHandshakeReceivedAsClient(WebSocket conn, ClientHandshake request, ServerHandshake response) {
-        logAdapter.log(LogEntry.LogType.INFO, "WebSocket Handshake Received As Client");
+        log.info("WebSocket Handshake Received As Client");
     }
 
     @Override
     public void onWebsocketHandshakeSentAsClient(WebSocket conn, ClientHandshake request) {
-        logAdapter.log(LogEntry.LogType.INFO, "WebSocket Handshake Sent As Client");
+        log.info("WebSocket Handshake Sent As Client");
     }
 
     @Override
     public void onWebsocketCloseInitiated(WebSocket ws, int code, String reason) {
-        logAdapter.log(LogEntry.LogType.INFO, "WebSocket Close Initiated: Code=" + code + ", Reason=" + reason);
+        log.info("WebSocket Close Initiated: Code=" + code + ", Reason=" + reason);
     }
 
     @Override
     public InetSocketAddress getLocalSocketAddress(WebSocket conn) {
-        logAdapter.log(LogEntry.LogType.DEBUG, "WebSocket Local Socket Address");
+        log.debug("WebSocket Local Socket Address");
         return null;
     }
 
     @Override
     public InetSocketAddress getRemoteSocketAddress(WebSocket conn) {
-        logAdapter.log(LogEntry.LogType.DEBUG, "WebSocket Remote Socket Address");
+        log.debug("WebSocket Remote Socket Address");
         return null;
     }
 }
\ No newline at end of file
@@ -0,0 +1,49 @@
+package com.ahmet.eldrctestapplication.websocket;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Process wide scheduler for every WebSocket timer: pings, reconnects, request timeouts and batch flushes.
+ * One daemon thread serves all connections instead of a java.util.Timer thread per timer.
+ * Tasks must be short, anything slow belongs on its own thread. Reconnects block while the client
+ * closes and joins its threads, so only their delay runs here and the reconnect itself on {@link #reconnects()}.
+ */
+public final class WebSocketScheduler {
+
+    private static final ScheduledExecutorService scheduler = create();
+    // Grows with the connections reconnecting at once, idle threads exit after a minute
+    private static final ExecutorService reconnects = new ThreadPoolExecutor(0, Integer.MAX_VALUE,
+            60, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+        Thread thread = new Thread(runnable, "WebSocketReconnect");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private WebSocketScheduler() {
+    }
+
+    public static ScheduledExecutorService get() {
+        return scheduler;
+    }
+
+    // Executor for blocking reconnects, kept off the scheduler thread
+    public static ExecutorService reconnects() {
+        return reconnects;
+    }
+
+    private static ScheduledExecutorService create() {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "WebSocketScheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Cancelled pings and timeouts are removed right away instead of lingering until their deadline
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+}
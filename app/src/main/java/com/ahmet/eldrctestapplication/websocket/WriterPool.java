@@ -0,0 +1,78 @@
+package com.ahmet.eldrctestapplication.websocket;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * One daemon thread draining the {@link SocketWriter}s of several connections, so adding a robot
+ * does not add a writer thread. Writers are visited round robin; each visit writes every pending
+ * safety command but only a small burst of bulk traffic, so one busy link can't starve the others.
+ */
+public class WriterPool implements Runnable {
+
+    private final Thread thread;
+    private volatile SocketWriter[] writers = new SocketWriter[0];
+    private volatile boolean running = true;
+
+    public WriterPool(String name) {
+        this.thread = new Thread(this, name);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    public int size() {
+        return writers.length;
+    }
+
+    public void stop() {
+        running = false;
+        LockSupport.unpark(thread);
+    }
+
+    Thread getThread() {
+        return thread;
+    }
+
+    synchronized void add(SocketWriter writer) {
+        SocketWriter[] current = writers;
+        SocketWriter[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = writer;
+        writers = updated;
+        LockSupport.unpark(thread);
+    }
+
+    synchronized void remove(SocketWriter writer) {
+        SocketWriter[] current = writers;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == writer) {
+                SocketWriter[] updated = new SocketWriter[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                writers = updated;
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            boolean busy = false;
+            boolean backpressured = false;
+            for (SocketWriter writer : writers) {
+                int state = writer.step();
+                if (state == SocketWriter.BUSY) {
+                    busy = true;
+                } else if (state == SocketWriter.BACKPRESSURED) {
+                    backpressured = true;
+                }
+            }
+            // A backpressured writer is polled again shortly, the others wake the thread when posted to
+            if (!busy && backpressured) {
+                LockSupport.parkNanos(this, SocketWriter.backpressurePollNanos());
+            } else if (!busy) {
+                LockSupport.park(this);
+            }
+        }
+    }
+}
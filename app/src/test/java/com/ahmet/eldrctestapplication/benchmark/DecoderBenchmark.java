@@ -0,0 +1,70 @@
+package com.ahmet.eldrctestapplication.benchmark;
+
+import com.ahmet.eldrctestapplication.communication.PacketDecoder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inbound decoding of single packets, batched frames and packets split across frames.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecoderBenchmark {
+
+    private static final String ANSWER = "042CX^C3[7:1200]";
+    private static final String BATCH = "043CX*A1[0:0]044CX^C3[7:1200]045MX^G1[2:255]046CX*I1[1:0]";
+
+    private PacketDecoder decoder;
+    private ByteBuffer answerBytes;
+    private String firstHalf;
+    private String secondHalf;
+
+    @Setup
+    public void setup(Blackhole blackhole) {
+        decoder = new PacketDecoder();
+        decoder.addHandler((packetId, transmitter, receiver, process, component, index, payload, length) ->
+                blackhole.consume(payload[length - 1]));
+        answerBytes = ByteBuffer.wrap(ANSWER.getBytes(StandardCharsets.US_ASCII));
+        firstHalf = ANSWER.substring(0, 7);
+        secondHalf = ANSWER.substring(7);
+    }
+
+    @Benchmark
+    public void decodeString() {
+        decoder.feed(ANSWER);
+    }
+
+    @Benchmark
+    public void decodeBytes() {
+        decoder.feed(answerBytes);
+    }
+
+    @Benchmark
+    public void decodeBatchedFrame() {
+        decoder.feed(BATCH);
+    }
+
+    @Benchmark
+    public void decodeSplitFrames() {
+        decoder.feed(firstHalf);
+        decoder.feed(secondHalf);
+    }
+}
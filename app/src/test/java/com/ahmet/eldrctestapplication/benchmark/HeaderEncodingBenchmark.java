@@ -0,0 +1,112 @@
+package com.ahmet.eldrctestapplication.benchmark;
+
+import com.ahmet.eldrctestapplication.communication.HeaderCache;
+import com.ahmet.eldrctestapplication.communication.PacketEncoder;
+import com.ahmet.eldrctestapplication.communication.PacketIdSequencer;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Component;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Index;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Process;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Receiver;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Transmitter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the StringBuilder packet path as of the id sequencer change with the cached header paths.
+ * Run with {@link #main(String[])} from the unit test classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HeaderEncodingBenchmark {
+
+    private final int[] speeds = {40, 40, 40, -35, -35, -35};
+    private ByteBuffer buffer;
+    private int legacyId = 1;
+
+    @Setup
+    public void setup() {
+        buffer = ByteBuffer.allocate(PacketEncoder.MAX_PACKET_SIZE);
+    }
+
+    // The builder as it was before the header cache, with the id sequencer's formatting already in
+    // place, so the difference is the header cache alone
+    @Benchmark
+    public String legacyStringBuilder() {
+        if (legacyId > PacketIdSequencer.MAX_ID) {
+            legacyId = 1;
+        }
+        StringBuilder packet = new StringBuilder(PacketIdSequencer.format(legacyId++))
+                .append(Transmitter.MASTER.getId()).append(Receiver.ALL.getId()).append(Process.WRITE.getCode())
+                .append(Component.MOTOR_DRIVE.getCode()).append(Index.ALL.getCode()).append("[");
+        for (int i = 0; i < speeds.length; i++) {
+            packet.append(speeds[i]);
+            if (i < speeds.length - 1) {
+                packet.append(":");
+            }
+        }
+        packet.append("]");
+        return packet.toString();
+    }
+
+    @Benchmark
+    public String cachedStringBuilder() {
+        return RobotMessageBuilder.buildPacket(Transmitter.MASTER, Receiver.ALL, Process.WRITE,
+                Component.MOTOR_DRIVE, Index.ALL, speeds);
+    }
+
+    // Header written char by char into the buffer, no cache
+    @Benchmark
+    public ByteBuffer perCharHeader() {
+        buffer.clear();
+        buffer.put((byte) Transmitter.MASTER.getId());
+        buffer.put((byte) Receiver.ALL.getId());
+        buffer.put((byte) Process.WRITE.getCode());
+        buffer.put((byte) Component.MOTOR_DRIVE.getCode());
+        buffer.put((byte) Index.ALL.getCode());
+        buffer.put((byte) '[');
+        return buffer;
+    }
+
+    @Benchmark
+    public ByteBuffer cachedHeader() {
+        buffer.clear();
+        HeaderCache.put(buffer, Transmitter.MASTER, Receiver.ALL, Process.WRITE, Component.MOTOR_DRIVE, Index.ALL);
+        return buffer;
+    }
+
+    @Benchmark
+    public ByteBuffer cachedHeaderEncoder() {
+        buffer.clear();
+        PacketEncoder.encode(buffer, Transmitter.MASTER, Receiver.ALL, Process.WRITE,
+                Component.MOTOR_DRIVE, Index.ALL, speeds);
+        return buffer;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(HeaderEncodingBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
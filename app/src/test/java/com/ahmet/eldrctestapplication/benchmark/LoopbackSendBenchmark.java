@@ -0,0 +1,121 @@
+package com.ahmet.eldrctestapplication.benchmark;
+
+import com.ahmet.eldrctestapplication.communication.PacketEncoder;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Component;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Receiver;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Transmitter;
+import com.ahmet.eldrctestapplication.log.LogAdapter;
+import com.ahmet.eldrctestapplication.websocket.WebSocketManager;
+
+import org.java_websocket.WebSocket;
+import org.java_websocket.handshake.ClientHandshake;
+import org.java_websocket.server.WebSocketServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends through {@link WebSocketManager} to a WebSocket server on the loopback interface.
+ * Measures the cost of the send call on the caller thread, not the network.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoopbackSendBenchmark {
+
+    private LoopbackServer server;
+    private WebSocketManager manager;
+    private ByteBuffer buffer;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        server = new LoopbackServer();
+        server.start();
+        server.started.await(5, TimeUnit.SECONDS);
+
+        manager = new WebSocketManager("ws://127.0.0.1:" + server.getPort(), new LogAdapter(null, new ArrayList<>(), null));
+        if (!manager.getWebSocket().connectBlocking(5, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("Loopback server not reachable");
+        }
+        buffer = ByteBuffer.allocate(PacketEncoder.MAX_PACKET_SIZE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        manager.disconnect();
+        server.stop(1000);
+    }
+
+    @Benchmark
+    public void sendMessage() {
+        manager.sendMessage(RobotMessageBuilder.createMotorSpeedPacket(Transmitter.MASTER, Receiver.ALL,
+                Component.MOTOR_DRIVE, 40, 40, 40, -35, -35, -35));
+    }
+
+    @Benchmark
+    public void sendPacket() {
+        buffer.clear();
+        PacketEncoder.encodeMotorSpeed(buffer, Transmitter.MASTER, Receiver.ALL, Component.MOTOR_DRIVE,
+                40, 40, 40, -35, -35, -35);
+        buffer.flip();
+        manager.sendPacket(buffer);
+    }
+
+    // Accepts the connection and counts what arrives
+    static class LoopbackServer extends WebSocketServer {
+        final CountDownLatch started = new CountDownLatch(1);
+        final AtomicLong received = new AtomicLong();
+
+        LoopbackServer() {
+            super(new InetSocketAddress("127.0.0.1", 0));
+            setReuseAddr(true);
+        }
+
+        @Override
+        public void onStart() {
+            started.countDown();
+        }
+
+        @Override
+        public void onOpen(WebSocket conn, ClientHandshake handshake) {
+        }
+
+        @Override
+        public void onClose(WebSocket conn, int code, String reason, boolean remote) {
+        }
+
+        @Override
+        public void onMessage(WebSocket conn, String message) {
+            received.incrementAndGet();
+        }
+
+        @Override
+        public void onMessage(WebSocket conn, ByteBuffer message) {
+            received.incrementAndGet();
+        }
+
+        @Override
+        public void onError(WebSocket conn, Exception ex) {
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.ahmet.eldrctestapplication.benchmark;
+
+import com.ahmet.eldrctestapplication.communication.PacketIdSequencer;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Receiver;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Packet id generation, single threaded and with the joystick, sender and poller threads racing.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PacketIdBenchmark {
+
+    private final PacketIdSequencer shared = new PacketIdSequencer(false);
+    private final PacketIdSequencer perReceiver = new PacketIdSequencer(true);
+
+    @Benchmark
+    public int nextShared() {
+        return shared.next(Receiver.ALL);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int nextSharedContended() {
+        return shared.next(Receiver.ALL);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int nextPerReceiverContended() {
+        return perReceiver.next(Receiver.MOTOR_CONTROLLER);
+    }
+
+    @Benchmark
+    public String format() {
+        return PacketIdSequencer.format(shared.next(Receiver.ALL));
+    }
+}
@@ -0,0 +1,109 @@
+package com.ahmet.eldrctestapplication.benchmark;
+
+import com.ahmet.eldrctestapplication.communication.PacketEncoder;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Component;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Index;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Process;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Receiver;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Transmitter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outbound packet building, both the String builders and the ByteBuffer encoder.
+ */
+@State(Scope.Thread)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProtocolBenchmark {
+
+    private final int[] speeds = {40, 40, 40, -35, -35, -35};
+    private ByteBuffer buffer;
+
+    @Setup
+    public void setup() {
+        buffer = ByteBuffer.allocate(PacketEncoder.MAX_PACKET_SIZE);
+    }
+
+    @Benchmark
+    public String buildPacket() {
+        return RobotMessageBuilder.buildPacket(Transmitter.MASTER, Receiver.ALL, Process.WRITE,
+                Component.MOTOR_DRIVE, Index.ALL, speeds);
+    }
+
+    @Benchmark
+    public String createMotorSpeedPacket() {
+        return RobotMessageBuilder.createMotorSpeedPacket(Transmitter.MASTER, Receiver.ALL, Component.MOTOR_DRIVE,
+                40, 40, 40, -35, -35, -35);
+    }
+
+    @Benchmark
+    public String createWritePacket() {
+        return RobotMessageBuilder.createWritePacket(Transmitter.MASTER, Receiver.MAIN_BOARD, Component.LED_HEADLIGHT,
+                Index.INDEX_1, 2, 255);
+    }
+
+    @Benchmark
+    public String createReadPacket() {
+        return RobotMessageBuilder.createReadPacket(Transmitter.MASTER, Receiver.MOTOR_CONTROLLER, Component.MOTOR_ARM,
+                Index.INDEX_3, 7);
+    }
+
+    @Benchmark
+    public String createAckPacket() {
+        return RobotMessageBuilder.createAckPacket(Transmitter.MOTOR_CONTROLLER, Receiver.MASTER, Component.MOTOR_ARM,
+                Index.INDEX_3, 7, 0);
+    }
+
+    @Benchmark
+    public String createAnswerPacket() {
+        return RobotMessageBuilder.createAnswerPacket(Transmitter.MOTOR_CONTROLLER, Receiver.MASTER, Component.MOTOR_ARM,
+                Index.INDEX_3, 7, 1200);
+    }
+
+    @Benchmark
+    public String createMessagePacket() {
+        return RobotMessageBuilder.createMessagePacket(Transmitter.MASTER, Receiver.MAIN_BOARD, Component.OUT_POWER,
+                Index.INDEX_1, 1, "status");
+    }
+
+    @Benchmark
+    public ByteBuffer encodeMotorSpeed() {
+        buffer.clear();
+        PacketEncoder.encodeMotorSpeed(buffer, Transmitter.MASTER, Receiver.ALL, Component.MOTOR_DRIVE,
+                40, 40, 40, -35, -35, -35);
+        return buffer;
+    }
+
+    @Benchmark
+    public ByteBuffer encodeWrite() {
+        buffer.clear();
+        PacketEncoder.encodeWrite(buffer, Transmitter.MASTER, Receiver.MAIN_BOARD, Component.LED_HEADLIGHT,
+                Index.INDEX_1, 2, 255);
+        return buffer;
+    }
+
+    @Benchmark
+    public ByteBuffer encodeRead() {
+        buffer.clear();
+        PacketEncoder.encodeRead(buffer, Transmitter.MASTER, Receiver.MOTOR_CONTROLLER, Component.MOTOR_ARM,
+                Index.INDEX_3, 7);
+        return buffer;
+    }
+}
@@ -0,0 +1,232 @@
+package com.ahmet.eldrctestapplication.communication;
+
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Component;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Index;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Process;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Receiver;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Transmitter;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Round trips through the ASCII and the binary codec and checks that both agree.
+ */
+public class CodecRoundTripTest {
+
+    private static final int[][] PAYLOADS = {
+            {},
+            {0},
+            {7, 1200},
+            {100, 100, 100, -100, -100, -100},
+            {-64, 63, -65, 64, 255, 999},
+            {Integer.MIN_VALUE, Integer.MAX_VALUE, -1}
+    };
+
+    @Test
+    public void everyHeaderAndPayload_decodesIdenticallyInBothCodecs() {
+        for (Transmitter transmitter : Transmitter.values()) {
+            for (Receiver receiver : Receiver.values()) {
+                for (Process process : Process.values()) {
+                    for (Component component : Component.values()) {
+                        for (Index index : Index.values()) {
+                            for (int[] payload : PAYLOADS) {
+                                Packet expected = new Packet(42, transmitter, receiver, process, component, index, payload);
+                                Packet ascii = decodeAscii(expected);
+                                Packet binary = decodeBinary(expected);
+                                assertEquals(expected, ascii);
+                                assertEquals(ascii, binary);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void asciiEncoder_matchesStringBuilder() {
+        int[] speeds = {40, 40, 40, -35, -35, -35};
+        String built = RobotMessageBuilder.buildPacket(Transmitter.MASTER, Receiver.ALL, Process.WRITE,
+                Component.MOTOR_DRIVE, Index.ALL, speeds);
+        ByteBuffer buffer = ByteBuffer.allocate(PacketEncoder.MAX_PACKET_SIZE);
+        PacketEncoder.encode(buffer, Transmitter.MASTER, Receiver.ALL, Process.WRITE,
+                Component.MOTOR_DRIVE, Index.ALL, speeds);
+        // Ids differ by one since both draw from the shared sequencer
+        assertEquals(built.substring(3), new String(buffer.array(), 3, buffer.position() - 3));
+    }
+
+    @Test
+    public void severalPacketsPerFrame_decodeInOrder() {
+        List<Packet> sent = new ArrayList<>();
+        ByteBuffer asciiFrame = ByteBuffer.allocate(1024);
+        ByteBuffer binaryFrame = ByteBuffer.allocate(1024);
+        for (int i = 0; i < PAYLOADS.length; i++) {
+            Packet packet = new Packet(i + 1, Transmitter.MOTOR_CONTROLLER, Receiver.MASTER, Process.ANSWER,
+                    Component.values()[i], Index.INDEX_1, PAYLOADS[i]);
+            sent.add(packet);
+            packet.encodeAscii(asciiFrame);
+            BinaryPacketCodec.encode(binaryFrame, packet.id, packet.transmitter, packet.receiver, packet.process,
+                    packet.component, packet.index, packet.payload, packet.payload.length);
+        }
+        asciiFrame.flip();
+        binaryFrame.flip();
+
+        // The ASCII stream is also split at an arbitrary point to cross a frame boundary
+        List<Packet> ascii = new ArrayList<>();
+        PacketDecoder decoder = new PacketDecoder();
+        decoder.addHandler(collector(ascii));
+        ByteBuffer head = asciiFrame.duplicate();
+        head.limit(17);
+        ByteBuffer tail = asciiFrame.duplicate();
+        tail.position(17);
+        decoder.feed(head);
+        decoder.feed(tail);
+
+        List<Packet> binary = new ArrayList<>();
+        new BinaryPacketCodec().decode(binaryFrame, collector(binary));
+
+        assertEquals(sent, ascii);
+        assertEquals(sent, binary);
+        assertEquals(0, decoder.getMalformedCount());
+    }
+
+    @Test
+    public void binaryMotorPacket_isSmallerThanAscii() {
+        Packet packet = new Packet(1, Transmitter.MASTER, Receiver.ALL, Process.WRITE, Component.MOTOR_DRIVE,
+                Index.ALL, new int[]{100, 100, 100, -100, -100, -100});
+        ByteBuffer ascii = ByteBuffer.allocate(PacketEncoder.MAX_PACKET_SIZE);
+        ByteBuffer binary = ByteBuffer.allocate(PacketEncoder.MAX_PACKET_SIZE);
+        packet.encodeAscii(ascii);
+        BinaryPacketCodec.encode(binary, packet.id, packet.transmitter, packet.receiver, packet.process,
+                packet.component, packet.index, packet.payload, packet.payload.length);
+        assertTrue(binary.position() * 2 < ascii.position());
+    }
+
+    @Test
+    public void transcoder_keepsIdsAndRejectsPartialOrMalformedInput() {
+        List<Packet> sent = new ArrayList<>();
+        ByteBuffer asciiFrame = ByteBuffer.allocate(1024);
+        for (int i = 0; i < PAYLOADS.length; i++) {
+            Packet packet = new Packet(900 + i, Transmitter.MASTER, Receiver.ALL, Process.WRITE,
+                    Component.values()[i], Index.ALL, PAYLOADS[i]);
+            sent.add(packet);
+            packet.encodeAscii(asciiFrame);
+        }
+        asciiFrame.flip();
+        BinaryTranscoder transcoder = new BinaryTranscoder();
+        ByteBuffer binaryFrame = ByteBuffer.allocate(asciiFrame.remaining());
+        assertTrue(transcoder.transcode(asciiFrame, binaryFrame));
+        assertEquals(0, asciiFrame.position());
+        binaryFrame.flip();
+        List<Packet> binary = new ArrayList<>();
+        new BinaryPacketCodec().decode(binaryFrame, collector(binary));
+        assertEquals(sent, binary);
+
+        ByteBuffer dst = ByteBuffer.allocate(PacketEncoder.MAX_PACKET_SIZE);
+        assertFalse(transcoder.transcode(ascii("001XA!AA[1:2]002XA!AA[3"), dst));
+        assertFalse(transcoder.transcode(ascii("hello"), dst));
+        assertEquals(0, dst.position());
+        // A failed transcode leaves nothing behind for the next one
+        assertTrue(transcoder.transcode(ascii("003XA!AA[4]"), dst));
+        assertEquals(BinaryPacketCodec.HEADER_SIZE + 1, dst.position());
+    }
+
+    private static ByteBuffer ascii(String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static Packet decodeAscii(Packet packet) {
+        ByteBuffer buffer = ByteBuffer.allocate(PacketEncoder.MAX_PACKET_SIZE);
+        packet.encodeAscii(buffer);
+        buffer.flip();
+        List<Packet> decoded = new ArrayList<>();
+        PacketDecoder decoder = new PacketDecoder();
+        decoder.addHandler(collector(decoded));
+        decoder.feed(buffer);
+        assertEquals(1, decoded.size());
+        return decoded.get(0);
+    }
+
+    private static Packet decodeBinary(Packet packet) {
+        ByteBuffer buffer = ByteBuffer.allocate(PacketEncoder.MAX_PACKET_SIZE);
+        BinaryPacketCodec.encode(buffer, packet.id, packet.transmitter, packet.receiver, packet.process,
+                packet.component, packet.index, packet.payload, packet.payload.length);
+        buffer.flip();
+        List<Packet> decoded = new ArrayList<>();
+        BinaryPacketCodec codec = new BinaryPacketCodec();
+        codec.decode(buffer, collector(decoded));
+        assertEquals(0, codec.getMalformedCount());
+        assertEquals(1, decoded.size());
+        return decoded.get(0);
+    }
+
+    private static PacketHandler collector(List<Packet> packets) {
+        return (packetId, transmitter, receiver, process, component, index, payload, length) ->
+                packets.add(new Packet(packetId, transmitter, receiver, process, component, index,
+                        Arrays.copyOf(payload, length)));
+    }
+
+    private static class Packet {
+        final int id;
+        final Transmitter transmitter;
+        final Receiver receiver;
+        final Process process;
+        final Component component;
+        final Index index;
+        final int[] payload;
+
+        Packet(int id, Transmitter transmitter, Receiver receiver, Process process, Component component,
+               Index index, int[] payload) {
+            this.id = id;
+            this.transmitter = transmitter;
+            this.receiver = receiver;
+            this.process = process;
+            this.component = component;
+            this.index = index;
+            this.payload = payload;
+        }
+
+        // ASCII with a fixed id, through the same header cache and int writer as PacketEncoder
+        void encodeAscii(ByteBuffer dst) {
+            PacketIdSequencer.put(dst, id);
+            HeaderCache.put(dst, transmitter, receiver, process, component, index);
+            for (int i = 0; i < payload.length; i++) {
+                if (i > 0) {
+                    dst.put((byte) ':');
+                }
+                PacketEncoder.putInt(dst, payload[i]);
+            }
+            dst.put((byte) ']');
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Packet)) {
+                return false;
+            }
+            Packet other = (Packet) o;
+            return id == other.id && transmitter == other.transmitter && receiver == other.receiver
+                    && process == other.process && component == other.component && index == other.index
+                    && Arrays.equals(payload, other.payload);
+        }
+
+        @Override
+        public int hashCode() {
+            return id;
+        }
+
+        @Override
+        public String toString() {
+            return id + " " + transmitter + " " + receiver + " " + process + " " + component + " " + index
+                    + " " + Arrays.toString(payload);
+        }
+    }
+}
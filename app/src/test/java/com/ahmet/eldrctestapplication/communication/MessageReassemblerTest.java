@@ -0,0 +1,152 @@
+package com.ahmet.eldrctestapplication.communication;
+
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Component;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Index;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Process;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Receiver;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Transmitter;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Reassembly of chunked MESSAGE transfers, including the ways a transfer can go wrong.
+ */
+public class MessageReassemblerTest {
+
+    private long now;
+    private final List<String> messages = new ArrayList<>();
+
+    private MessageReassembler reassembler(int maxMessageSize, int maxBufferedBytes) {
+        MessageReassembler reassembler = new MessageReassembler(maxMessageSize, maxBufferedBytes,
+                1, TimeUnit.SECONDS, () -> now);
+        reassembler.setListener((transmitter, component, index, parameter, content, length) ->
+                messages.add(new String(content, 0, length, StandardCharsets.UTF_8)));
+        return reassembler;
+    }
+
+    // Chunk payloads of the text in order, as decoded by PacketDecoder
+    private static List<int[]> chunks(String text, int chunkSize) {
+        List<int[]> chunks = new ArrayList<>();
+        PacketDecoder decoder = new PacketDecoder();
+        decoder.addHandler((packetId, transmitter, receiver, process, component, index, payload, length) -> {
+            int[] copy = new int[length];
+            System.arraycopy(payload, 0, copy, 0, length);
+            chunks.add(copy);
+        });
+        MessageChunker.stream(Transmitter.MAIN_BOARD, Receiver.MASTER, Component.LED_LAMP, Index.INDEX_1, 3,
+                ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)), chunkSize, decoder::feed);
+        return chunks;
+    }
+
+    private static void feed(MessageReassembler reassembler, int[] payload) {
+        reassembler.onPacket(1, Transmitter.MAIN_BOARD, Receiver.MASTER, Process.MESSAGE, Component.LED_LAMP,
+                Index.INDEX_1, payload, payload.length);
+    }
+
+    @Test
+    public void chunksInOrder_rebuildTheMessage() {
+        MessageReassembler reassembler = reassembler(1024, 4096);
+        for (int[] chunk : chunks("hello, robot", 4)) {
+            feed(reassembler, chunk);
+        }
+        assertEquals(1, messages.size());
+        assertEquals("hello, robot", messages.get(0));
+        assertEquals(0, reassembler.getPendingCount());
+        assertEquals(0, reassembler.getBufferedBytes());
+    }
+
+    @Test
+    public void outOfOrderChunk_dropsTheTransfer() {
+        MessageReassembler reassembler = reassembler(1024, 4096);
+        List<int[]> chunks = chunks("out of order", 4);
+        feed(reassembler, chunks.get(0));
+        feed(reassembler, chunks.get(2));
+        feed(reassembler, chunks.get(1));
+        assertTrue(messages.isEmpty());
+        assertEquals(0, reassembler.getPendingCount());
+        assertEquals(0, reassembler.getBufferedBytes());
+        assertEquals(2, reassembler.getDroppedCount());
+    }
+
+    @Test
+    public void abandonedTransfer_isEvictedAfterTheIdleTimeout() {
+        MessageReassembler reassembler = reassembler(1024, 4096);
+        feed(reassembler, chunks("never finished", 4).get(0));
+        assertEquals(1, reassembler.getPendingCount());
+
+        now += TimeUnit.MILLISECONDS.toNanos(999);
+        reassembler.evictIdle();
+        assertEquals(1, reassembler.getPendingCount());
+
+        // Later packets sweep too, at most every quarter of the idle timeout
+        now += TimeUnit.MILLISECONDS.toNanos(300);
+        for (int[] chunk : chunks("next", 4)) {
+            feed(reassembler, chunk);
+        }
+        assertEquals(0, reassembler.getPendingCount());
+        assertEquals(0, reassembler.getBufferedBytes());
+        assertEquals(1, reassembler.getEvictedCount());
+        assertEquals("next", messages.get(0));
+    }
+
+    @Test
+    public void invalidTotal_isRejected() {
+        MessageReassembler reassembler = reassembler(16, 64);
+        feed(reassembler, new int[]{3, 7, 0, 0, 'a'});
+        feed(reassembler, new int[]{3, 8, 0, -5, 'a'});
+        feed(reassembler, new int[]{3, 9, 0, 17, 'a'});
+        assertEquals(0, reassembler.getPendingCount());
+        assertEquals(3, reassembler.getDroppedCount());
+    }
+
+    @Test
+    public void byteCap_refusesNewTransfersUntilSpaceIsFree() {
+        MessageReassembler reassembler = reassembler(8, 8);
+        feed(reassembler, chunks("abcdefgh", 4).get(0));
+        feed(reassembler, new int[]{3, 500, 0, 2, 'x', 'y', 'z', 'w', 'v'});
+        assertEquals(1, reassembler.getPendingCount());
+        assertEquals(4, reassembler.getBufferedBytes());
+        assertEquals(1, reassembler.getDroppedCount());
+    }
+
+    @Test
+    public void valueOutsideAByte_dropsTheTransfer() {
+        MessageReassembler reassembler = reassembler(1024, 4096);
+        feed(reassembler, new int[]{3, 11, 0, 2, 'o', 'k'});
+        feed(reassembler, new int[]{3, 11, 1, 2, 256});
+        feed(reassembler, new int[]{3, 12, 0, 1, -1});
+        assertTrue(messages.isEmpty());
+        assertEquals(0, reassembler.getPendingCount());
+        assertEquals(0, reassembler.getBufferedBytes());
+        assertEquals(2, reassembler.getDroppedCount());
+    }
+
+    @Test
+    public void listener_isCalledWithoutTheLockHeld() throws Exception {
+        MessageReassembler reassembler = reassembler(1024, 4096);
+        List<Integer> pending = new ArrayList<>();
+        reassembler.setListener((transmitter, component, index, parameter, content, length) -> {
+            // Another thread needs the reassembler's lock while the listener waits for it
+            Thread other = new Thread(() -> pending.add(reassembler.getPendingCount()));
+            other.start();
+            try {
+                other.join(2000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        for (int[] chunk : chunks("call back", 4)) {
+            feed(reassembler, chunk);
+        }
+        assertEquals(1, pending.size());
+        assertEquals(0, (int) pending.get(0));
+    }
+}
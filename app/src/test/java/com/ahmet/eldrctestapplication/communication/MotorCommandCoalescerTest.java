@@ -0,0 +1,111 @@
+package com.ahmet.eldrctestapplication.communication;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Suppression of repeated motor commands and the keepalive that still repeats them.
+ */
+public class MotorCommandCoalescerTest {
+
+    private static final int PACKET_SIZE = 30;
+
+    private long now;
+    private boolean connected = true;
+    private final List<String> sent = new ArrayList<>();
+    private final MotorCommandCoalescer coalescer = new MotorCommandCoalescer(250, (fl, fr, rl, rr, ml, mr) -> {
+        if (!connected) {
+            return -1;
+        }
+        sent.add(Arrays.toString(new int[]{fl, fr, rl, rr, ml, mr}));
+        return PACKET_SIZE;
+    }, () -> now);
+
+    private void advanceMs(long ms) {
+        now += TimeUnit.MILLISECONDS.toNanos(ms);
+    }
+
+    @Test
+    public void identicalCommands_areSuppressedUntilTheKeepalive() {
+        assertTrue(coalescer.submit(40, 40, 40, 40, 40, 40));
+        advanceMs(100);
+        assertFalse(coalescer.submit(40, 40, 40, 40, 40, 40));
+        assertFalse(coalescer.submit(40, 40, 40, 40, 40, 40));
+        assertEquals(2, coalescer.getSuppressedCount());
+        assertEquals(2 * PACKET_SIZE, coalescer.getSuppressedBytes());
+
+        advanceMs(150);
+        assertTrue(coalescer.submit(40, 40, 40, 40, 40, 40));
+        assertEquals(1, coalescer.getKeepaliveCount());
+        assertEquals(2, coalescer.getSentCount());
+    }
+
+    @Test
+    public void changedCommand_isSentRightAway() {
+        coalescer.submit(40, 40, 40, 40, 40, 40);
+        assertTrue(coalescer.submit(40, 40, 40, 40, 40, 39));
+        assertEquals(Arrays.asList("[40, 40, 40, 40, 40, 40]", "[40, 40, 40, 40, 40, 39]"), sent);
+        assertEquals(0, coalescer.getKeepaliveCount());
+    }
+
+    @Test
+    public void tick_repeatsTheLastCommandOncePerInterval() {
+        coalescer.tick();
+        assertTrue("nothing to repeat before the first command", sent.isEmpty());
+
+        coalescer.submit(0, 0, 0, 0, 0, 0);
+        advanceMs(249);
+        coalescer.tick();
+        assertEquals(1, sent.size());
+        advanceMs(1);
+        coalescer.tick();
+        coalescer.tick();
+        assertEquals(2, sent.size());
+        assertEquals("[0, 0, 0, 0, 0, 0]", sent.get(1));
+        assertEquals(1, coalescer.getKeepaliveCount());
+    }
+
+    @Test
+    public void reset_sendsTheNextCommandEvenIfUnchanged() {
+        coalescer.submit(10, 10, 10, 10, 10, 10);
+        coalescer.reset();
+        assertTrue(coalescer.submit(10, 10, 10, 10, 10, 10));
+        assertEquals(2, coalescer.getSentCount());
+        assertEquals(0, coalescer.getSuppressedCount());
+    }
+
+    @Test
+    public void failedSend_isNotMarkedSent() {
+        connected = false;
+        assertFalse(coalescer.submit(30, 30, 30, 30, 30, 30));
+        assertEquals(0, coalescer.getSentCount());
+
+        // The same stick position goes out as soon as the socket is back
+        connected = true;
+        advanceMs(10);
+        assertTrue(coalescer.submit(30, 30, 30, 30, 30, 30));
+        assertEquals(Arrays.asList("[30, 30, 30, 30, 30, 30]"), sent);
+        assertEquals(0, coalescer.getSuppressedCount());
+    }
+
+    @Test
+    public void tick_retriesAFailedSendWithoutWaitingForTheKeepalive() {
+        connected = false;
+        coalescer.submit(20, 20, 20, 20, 20, 20);
+        connected = true;
+        coalescer.tick();
+        assertEquals(1, sent.size());
+        assertEquals(1, coalescer.getSentCount());
+        assertEquals(0, coalescer.getKeepaliveCount());
+
+        // Sent now, so the next tick waits for the interval again
+        coalescer.tick();
+        assertEquals(1, sent.size());
+    }
+}
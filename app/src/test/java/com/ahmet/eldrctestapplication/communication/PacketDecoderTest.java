@@ -0,0 +1,92 @@
+package com.ahmet.eldrctestapplication.communication;
+
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Component;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Process;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Incremental ASCII decoding: split frames, malformed input and value range.
+ */
+public class PacketDecoderTest {
+
+    private final PacketDecoder decoder = new PacketDecoder();
+    // "id:payload" of every decoded packet
+    private final List<String> packets = new ArrayList<>();
+
+    public PacketDecoderTest() {
+        decoder.addHandler((packetId, transmitter, receiver, process, component, index, payload, length) ->
+                packets.add(packetId + ":" + Arrays.toString(Arrays.copyOf(payload, length))));
+    }
+
+    @Test
+    public void packetSplitAcrossFrames_isDecodedOnce() {
+        String frame = "001XA!AA[1:-2]002XM!GA[3]";
+        for (int split = 1; split < frame.length(); split++) {
+            packets.clear();
+            decoder.feed(frame.substring(0, split));
+            decoder.feed(ByteBuffer.wrap(frame.substring(split).getBytes(StandardCharsets.US_ASCII)));
+            assertEquals("split at " + split, Arrays.asList("1:[1, -2]", "2:[3]"), packets);
+        }
+        assertEquals(0, decoder.getMalformedCount());
+    }
+
+    @Test
+    public void emptyPayloadAndSeparators_areAccepted() {
+        decoder.feed(" 003XA!AA[]\r\n004XA!AA[0]\n");
+        assertEquals(Arrays.asList("3:[]", "4:[0]"), packets);
+        assertEquals(0, decoder.getMalformedCount());
+    }
+
+    @Test
+    public void loneMinus_isMalformed() {
+        decoder.feed("001XA!AA[-]002XA!AA[1:-:2]003XA!AA[-5]");
+        assertEquals(Arrays.asList("3:[-5]"), packets);
+        assertEquals(2, decoder.getMalformedCount());
+    }
+
+    @Test
+    public void garbage_countsOncePerBadPacket() {
+        decoder.feed("hello, robot!");
+        assertEquals(1, decoder.getMalformedCount());
+        decoder.feed("001XA!AA[1?]garbage");
+        assertEquals(2, decoder.getMalformedCount());
+        decoder.feed("002XA!AA[2]");
+        assertEquals(Arrays.asList("2:[2]"), packets);
+        assertEquals(2, decoder.getMalformedCount());
+    }
+
+    @Test
+    public void valuesOutsideIntRange_areMalformed() {
+        decoder.feed("001XA!AA[2147483647:-2147483648]");
+        decoder.feed("002XA!AA[2147483648]");
+        decoder.feed("003XA!AA[-2147483649]");
+        decoder.feed("004XA!AA[99999999999999999999]");
+        decoder.feed("005XA!AA[7]");
+        assertEquals(Arrays.asList("1:[2147483647, -2147483648]", "5:[7]"), packets);
+        assertEquals(3, decoder.getMalformedCount());
+    }
+
+    @Test
+    public void decodedHeader_matchesTheBuilder() {
+        List<Process> processes = new ArrayList<>();
+        List<Component> components = new ArrayList<>();
+        decoder.addHandler((packetId, transmitter, receiver, process, component, index, payload, length) -> {
+            processes.add(process);
+            components.add(component);
+        });
+        decoder.feed(RobotMessageBuilder.createMotorSpeedPacket(RobotMessageBuilder.Transmitter.MASTER,
+                RobotMessageBuilder.Receiver.ALL, Component.MOTOR_DRIVE, 1, 2, 3, -4, -5, -6));
+        assertEquals(Arrays.asList(Process.WRITE), processes);
+        assertEquals(Arrays.asList(Component.MOTOR_DRIVE), components);
+        assertTrue(packets.get(0).endsWith("[1, 2, 3, -4, -5, -6]"));
+    }
+}
@@ -0,0 +1,80 @@
+package com.ahmet.eldrctestapplication.communication;
+
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Receiver;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.junit.Assert.*;
+
+/**
+ * Range, wrap-around and per receiver sequences of the packet id source.
+ */
+public class PacketIdSequencerTest {
+
+    @Test
+    public void ids_cycleThroughTheRangeAndWrapToMin() {
+        PacketIdSequencer sequencer = new PacketIdSequencer();
+        for (int expected = PacketIdSequencer.MIN_ID; expected <= PacketIdSequencer.MAX_ID; expected++) {
+            assertEquals(expected, sequencer.next(Receiver.ALL));
+        }
+        assertEquals(PacketIdSequencer.MIN_ID, sequencer.next(Receiver.ALL));
+    }
+
+    @Test
+    public void rawCounterOverflow_staysInRange() {
+        PacketIdSequencer sequencer = new PacketIdSequencer(false, Integer.MAX_VALUE - 2);
+        for (int i = 0; i < 2 * PacketIdSequencer.MAX_ID; i++) {
+            int id = sequencer.next(Receiver.ALL);
+            assertTrue("id " + id, id >= PacketIdSequencer.MIN_ID && id <= PacketIdSequencer.MAX_ID);
+        }
+    }
+
+    @Test
+    public void perReceiver_countsEachReceiverOnItsOwn() {
+        PacketIdSequencer sequencer = new PacketIdSequencer(true);
+        assertEquals(1, sequencer.next(Receiver.MAIN_BOARD));
+        assertEquals(2, sequencer.next(Receiver.MAIN_BOARD));
+        assertEquals(1, sequencer.next(Receiver.MOTOR_CONTROLLER));
+        assertEquals(3, sequencer.next(Receiver.MAIN_BOARD));
+
+        // Switched off, all receivers share one sequence again
+        sequencer.setPerReceiver(false);
+        assertEquals(1, sequencer.next(Receiver.MAIN_BOARD));
+        assertEquals(2, sequencer.next(Receiver.MOTOR_CONTROLLER));
+    }
+
+    @Test
+    public void concurrentCallers_getEveryIdEquallyOften() throws Exception {
+        PacketIdSequencer sequencer = new PacketIdSequencer();
+        AtomicIntegerArray seen = new AtomicIntegerArray(PacketIdSequencer.MAX_ID + 1);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < PacketIdSequencer.MAX_ID; i++) {
+                    seen.incrementAndGet(sequencer.next(Receiver.ALL));
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(0, seen.get(0));
+        for (int id = PacketIdSequencer.MIN_ID; id <= PacketIdSequencer.MAX_ID; id++) {
+            assertEquals("id " + id, threads.length, seen.get(id));
+        }
+    }
+
+    @Test
+    public void formatAndPut_writeThreeZeroPaddedDigits() {
+        assertEquals("007", PacketIdSequencer.format(7));
+        assertEquals("999", PacketIdSequencer.format(999));
+        ByteBuffer buffer = ByteBuffer.allocate(8);
+        PacketIdSequencer.put(buffer, 42);
+        assertEquals("042", new String(buffer.array(), 0, buffer.position(), StandardCharsets.US_ASCII));
+    }
+}
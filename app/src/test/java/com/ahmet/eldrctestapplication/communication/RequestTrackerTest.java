@@ -0,0 +1,89 @@
+package com.ahmet.eldrctestapplication.communication;
+
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Component;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Index;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Process;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Receiver;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Transmitter;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.Assert.*;
+
+/**
+ * Matching of READ/WRITE requests with their replies.
+ */
+public class RequestTrackerTest {
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    // Packet ids of the requests sent, in order
+    private final List<Integer> sentIds = new ArrayList<>();
+    private final PacketDecoder sentDecoder = new PacketDecoder();
+    private final RequestTracker tracker = new RequestTracker(Transmitter.MASTER, sentDecoder::feed, scheduler);
+
+    public RequestTrackerTest() {
+        sentDecoder.addHandler((packetId, transmitter, receiver, process, component, index, payload, length) ->
+                sentIds.add(packetId));
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    private void reply(int packetId, Process process, Component component, int parameter, int value) {
+        int[] payload = {parameter, value};
+        tracker.onPacket(packetId, Transmitter.MAIN_BOARD, Receiver.MASTER, process, component, Index.INDEX_1,
+                payload, payload.length);
+    }
+
+    @Test
+    public void reply_completesTheRequestAndReportsItsPacketId() throws Exception {
+        List<Integer> repliedIds = new ArrayList<>();
+        tracker.setReplyListener((packetId, elapsedNanos) -> {
+            assertTrue(elapsedNanos >= 0);
+            repliedIds.add(packetId);
+        });
+        CompletableFuture<Integer> read = tracker.read(Receiver.MAIN_BOARD, Component.LED_HEADLIGHT, Index.INDEX_1, 3);
+        assertEquals(1, sentIds.size());
+
+        reply(sentIds.get(0), Process.ANSWER, Component.LED_HEADLIGHT, 3, 80);
+        assertEquals(80, (int) read.getNow(-1));
+        assertEquals(sentIds, repliedIds);
+        assertEquals(0, tracker.getPendingCount());
+    }
+
+    @Test
+    public void failedSend_failsTheRequestRightAway() {
+        RequestTracker closed = new RequestTracker(Transmitter.MASTER, packet -> {
+            throw new IllegalStateException("WebSocket is not connected");
+        }, scheduler);
+        CompletableFuture<Integer> write = closed.write(Receiver.MAIN_BOARD, Component.OUT_BRAKE, Index.INDEX_1, 0, 1);
+        assertTrue(write.isCompletedExceptionally());
+        assertEquals(0, closed.getPendingCount());
+    }
+
+    @Test
+    public void replyForAnotherRequest_leavesThePendingRequestWaiting() {
+        CompletableFuture<Integer> write = tracker.write(Receiver.MAIN_BOARD, Component.LED_HEADLIGHT, Index.INDEX_1, 3, 80);
+        int packetId = sentIds.get(0);
+
+        // Same id, but an answer, another component or another parameter
+        reply(packetId, Process.ANSWER, Component.LED_HEADLIGHT, 3, 0);
+        reply(packetId, Process.ACK, Component.LED_LAMP, 3, 0);
+        reply(packetId, Process.ACK, Component.LED_HEADLIGHT, 4, 0);
+        assertFalse(write.isDone());
+        assertEquals(3, tracker.getMismatchedCount());
+
+        reply(packetId, Process.ACK, Component.LED_HEADLIGHT, 3, 0);
+        assertEquals(0, (int) write.getNow(-1));
+    }
+}
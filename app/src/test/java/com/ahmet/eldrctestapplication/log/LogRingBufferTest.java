@@ -0,0 +1,67 @@
+package com.ahmet.eldrctestapplication.log;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Position and sequence mapping of the ring buffer before and after it wraps, and recycling of
+ * the entries it overwrites.
+ */
+public class LogRingBufferTest {
+
+    @Test
+    public void overwritesOldest_andKeepsPositionZeroOldest() {
+        LogRingBuffer buffer = new LogRingBuffer(3);
+        for (int i = 0; i < 5; i++) {
+            buffer.add(new LogEntry(LogEntry.LogType.INFO, "m" + i));
+        }
+        assertEquals(3, buffer.size());
+        assertEquals("m2", buffer.get(0).getMessage());
+        assertEquals("m4", buffer.get(2).getMessage());
+        assertEquals(2, buffer.getOverwrittenCount());
+    }
+
+    @Test
+    public void sequenceNumbers_surviveWrapping() {
+        LogRingBuffer buffer = new LogRingBuffer(3);
+        for (int i = 0; i < 4; i++) {
+            buffer.add(new LogEntry(LogEntry.LogType.INFO, "m" + i));
+        }
+        assertEquals(1, buffer.getSequence(0));
+        assertEquals(3, buffer.getSequence(2));
+        assertEquals(2, buffer.positionOf(3));
+        assertEquals(-1, buffer.positionOf(0));
+
+        buffer.add(new LogEntry(LogEntry.LogType.INFO, "m4"));
+        assertEquals(1, buffer.positionOf(3));
+        assertEquals("m3", buffer.get(buffer.positionOf(3)).getMessage());
+    }
+
+    @Test
+    public void clear_keepsSequenceRunning() {
+        LogRingBuffer buffer = new LogRingBuffer(2);
+        buffer.add(new LogEntry(LogEntry.LogType.INFO, "a"));
+        buffer.clear();
+        assertTrue(buffer.isEmpty());
+        buffer.add(new LogEntry(LogEntry.LogType.ERROR, "b"));
+        assertEquals(1, buffer.getSequence(0));
+        assertEquals("b", buffer.get(0).getMessage());
+    }
+
+    @Test
+    public void overwrittenEntry_isRecycledOnceLastHolderReleases() {
+        LogRingBuffer buffer = new LogRingBuffer(1);
+        LogEntry first = LogEntry.obtain(LogEntry.LogType.INFO, "test", "first").setRttMicros(42);
+        first.retain(); // e.g. still staged in the session log
+        buffer.add(first);
+        buffer.add(LogEntry.obtain(LogEntry.LogType.INFO, "test", "second"));
+        assertEquals("first", first.getMessage());
+
+        first.release();
+        assertNull(first.getMessage());
+        LogEntry reused = LogEntry.obtain(LogEntry.LogType.DEBUG, "test", "third");
+        assertSame(first, reused);
+        assertEquals(LogEntry.NO_RTT, reused.getRttMicros());
+    }
+}
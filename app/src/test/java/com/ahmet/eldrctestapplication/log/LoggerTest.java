@@ -0,0 +1,52 @@
+package com.ahmet.eldrctestapplication.log;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Placeholder formatting and level/tag gating of the logging facade.
+ */
+public class LoggerTest {
+
+    @After
+    public void tearDown() {
+        Logger.setMinLevel(LogEntry.LogType.DEBUG);
+        Logger.setTagEnabled("test", true);
+    }
+
+    @Test
+    public void format_fillsPlaceholdersInOrder() {
+        assertEquals("a=1 b=x", Logger.format("a={} b={}", 1, "x", null, 2));
+        assertEquals("only 7 {}", Logger.format("only {} {}", 7L, null, null, 1));
+        assertEquals("no placeholders", Logger.format("no placeholders", "x", null, null, 1));
+    }
+
+    @Test
+    public void gating_followsMinLevelAndTagSwitch() {
+        Logger logger = new Logger("test", new LogAdapter(null, new LogRingBuffer(4), null));
+        // DEBUG by default, the per packet TRACE lines are off
+        assertTrue(logger.isDebugEnabled());
+        assertFalse(logger.isTraceEnabled());
+
+        Logger.setMinLevel(LogEntry.LogType.TRACE);
+        assertTrue(logger.isTraceEnabled());
+
+        Logger.setMinLevel(LogEntry.LogType.INFO);
+        assertFalse(logger.isDebugEnabled());
+        assertTrue(logger.isEnabled(LogEntry.LogType.INFO));
+
+        Logger.setTagEnabled("test", false);
+        assertFalse(logger.isEnabled(LogEntry.LogType.ERROR));
+        assertTrue(Logger.isTagEnabled("other"));
+    }
+
+    @Test
+    public void disabledStatement_neverCallsSupplier() {
+        Logger logger = new Logger("test", new LogAdapter(null, new LogRingBuffer(4), null));
+        logger.log(LogEntry.LogType.TRACE, () -> {
+            throw new AssertionError("formatted while disabled");
+        });
+    }
+}
@@ -0,0 +1,79 @@
+package com.ahmet.eldrctestapplication.log;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Writes through the memory mapped session log and reads it back, structured fields included.
+ */
+public class SessionLogTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void rotation_keepsNewestSegmentsInOrder() throws Exception {
+        File directory = folder.newFolder("session-log");
+        SessionLogWriter writer = new SessionLogWriter(directory, 1024, 3, 10000);
+        for (int i = 0; i < 500; i++) {
+            assertTrue(writer.append(new LogEntry(i % 2 == 0 ? LogEntry.LogType.INFO : LogEntry.LogType.ERROR, "entry " + i)));
+        }
+        writer.close();
+        assertTrue(writer.awaitClosed(2, TimeUnit.SECONDS));
+        assertNull(writer.getLastError());
+        assertEquals(500, writer.getWrittenCount());
+        assertEquals(3, directory.list().length);
+
+        List<String> messages = new ArrayList<>();
+        List<LogEntry.LogType> types = new ArrayList<>();
+        long[] last = {Long.MIN_VALUE};
+        SessionLogReader.read(directory, entry -> {
+            assertTrue(entry.getNanoTime() >= last[0]);
+            last[0] = entry.getNanoTime();
+            messages.add(entry.getMessage());
+            types.add(entry.getType());
+        });
+        assertFalse(messages.isEmpty());
+        assertTrue(messages.size() < 500);
+        assertEquals("entry 499", messages.get(messages.size() - 1));
+        assertEquals(LogEntry.LogType.ERROR, types.get(types.size() - 1));
+    }
+
+    @Test
+    public void newSession_continuesAfterExistingSegments() throws Exception {
+        File directory = folder.newFolder("session-log");
+        SessionLogWriter first = new SessionLogWriter(directory);
+        first.append(LogEntry.obtain(LogEntry.LogType.INFO, "WebSocket.RX", "first")
+                .setPacketId(7).setRttMicros(1500).setQueueDepth(3));
+        first.close();
+        assertTrue(first.awaitClosed(2, TimeUnit.SECONDS));
+        SessionLogWriter second = new SessionLogWriter(directory);
+        second.append(new LogEntry(LogEntry.LogType.DEBUG, "second"));
+        second.close();
+        assertTrue(second.awaitClosed(2, TimeUnit.SECONDS));
+
+        List<String> messages = new ArrayList<>();
+        assertEquals(2, SessionLogReader.read(directory, entry -> {
+            if (messages.isEmpty()) {
+                assertEquals("WebSocket.RX", entry.getCategory());
+                assertEquals(7, entry.getPacketId());
+                assertEquals(1500, entry.getRttMicros());
+                assertEquals(3, entry.getQueueDepth());
+            } else {
+                assertNull(entry.getCategory());
+                assertEquals(LogEntry.NO_PACKET_ID, entry.getPacketId());
+            }
+            messages.add(entry.getMessage());
+        }));
+        assertEquals("first", messages.get(0));
+        assertEquals("second", messages.get(1));
+    }
+}
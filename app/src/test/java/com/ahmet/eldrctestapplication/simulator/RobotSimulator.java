@@ -0,0 +1,314 @@
+package com.ahmet.eldrctestapplication.simulator;
+
+import com.ahmet.eldrctestapplication.communication.BinaryPacketCodec;
+import com.ahmet.eldrctestapplication.communication.PacketDecoder;
+import com.ahmet.eldrctestapplication.communication.PacketEncoder;
+import com.ahmet.eldrctestapplication.communication.PacketHandler;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Component;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Index;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Process;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Receiver;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Transmitter;
+
+import org.java_websocket.WebSocket;
+import org.java_websocket.handshake.ClientHandshake;
+import org.java_websocket.server.WebSocketServer;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Stand-in for the robot at 192.168.3.2, runs on any JVM.
+ * Decodes the RobotMessageBuilder protocol from text frames (ASCII) or binary frames
+ * ({@link BinaryPacketCodec}) and answers in the same format:
+ * <ul>
+ *   <li>WRITE [parameter:value] stores the value and replies ACK [parameter:0]</li>
+ *   <li>READ [parameter] replies ANSWER [parameter:value], 0 for parameters never written</li>
+ *   <li>MOTOR_DRIVE WRITE with six speeds sets the motors, no reply unless enabled</li>
+ * </ul>
+ * Writing a non zero value to OUT_BRAKE engages the brake, which holds the motors at zero.
+ * Replies are sent after the configured processing delay, immediately when it is zero.
+ *
+ * Run standalone with: RobotSimulator [port] [delayMs]
+ */
+public class RobotSimulator extends WebSocketServer {
+
+    public static final int DEFAULT_PORT = 2005;
+
+    private static final int MOTOR_COUNT = 6;
+
+    private final ScheduledExecutorService replyScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "RobotSimulatorReplies");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final ConcurrentHashMap<Long, Integer> parameters = new ConcurrentHashMap<>();
+    private final int[] motorSpeeds = new int[MOTOR_COUNT];
+    private volatile boolean brakeEngaged;
+    private volatile long processingDelayMicros;
+    private volatile boolean ackMotorCommands;
+
+    private final AtomicLong packetCount = new AtomicLong();
+    private final AtomicLong motorCommandCount = new AtomicLong();
+    private final AtomicLong replyCount = new AtomicLong();
+    private final AtomicLong malformedCount = new AtomicLong();
+    private final AtomicLong textFrameCount = new AtomicLong();
+    private final AtomicLong binaryFrameCount = new AtomicLong();
+    // Component of every WRITE in arrival order
+    private final List<Component> writeOrder = new CopyOnWriteArrayList<>();
+
+    public RobotSimulator(int port) {
+        super(new InetSocketAddress(port));
+        setReuseAddr(true);
+    }
+
+    // Port 0 picks a free port, see getPort() once started
+    public RobotSimulator(String host, int port) {
+        super(new InetSocketAddress(host, port));
+        setReuseAddr(true);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        RobotSimulator simulator = new RobotSimulator(args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT);
+        if (args.length > 1) {
+            simulator.setProcessingDelay(Long.parseLong(args[1]), TimeUnit.MILLISECONDS);
+        }
+        simulator.start();
+        simulator.awaitStart(5, TimeUnit.SECONDS);
+        System.out.println("Robot simulator listening on port " + simulator.getPort());
+        Thread.currentThread().join();
+    }
+
+    public boolean awaitStart(long timeout, TimeUnit unit) throws InterruptedException {
+        return started.await(timeout, unit);
+    }
+
+    public void setProcessingDelay(long delay, TimeUnit unit) {
+        this.processingDelayMicros = unit.toMicros(delay);
+    }
+
+    // Motor commands are fire and forget on the real robot, enable to have them acknowledged too
+    public void setAckMotorCommands(boolean ackMotorCommands) {
+        this.ackMotorCommands = ackMotorCommands;
+    }
+
+    public synchronized int[] getMotorSpeeds() {
+        return motorSpeeds.clone();
+    }
+
+    public boolean isBrakeEngaged() {
+        return brakeEngaged;
+    }
+
+    // Last value written to the parameter, LED and output state included
+    public int getParameter(Component component, Index index, int parameter) {
+        Integer value = parameters.get(key(component, index, parameter));
+        return value != null ? value : 0;
+    }
+
+    public void setParameter(Component component, Index index, int parameter, int value) {
+        parameters.put(key(component, index, parameter), value);
+    }
+
+    public long getPacketCount() {
+        return packetCount.get();
+    }
+
+    public long getMotorCommandCount() {
+        return motorCommandCount.get();
+    }
+
+    public long getReplyCount() {
+        return replyCount.get();
+    }
+
+    public long getMalformedCount() {
+        return malformedCount.get();
+    }
+
+    public long getTextFrameCount() {
+        return textFrameCount.get();
+    }
+
+    public long getBinaryFrameCount() {
+        return binaryFrameCount.get();
+    }
+
+    public List<Component> getWriteOrder() {
+        return new ArrayList<>(writeOrder);
+    }
+
+    public void stopSimulator() throws InterruptedException {
+        replyScheduler.shutdownNow();
+        stop(1000);
+    }
+
+    @Override
+    public void onStart() {
+        started.countDown();
+    }
+
+    @Override
+    public void onOpen(WebSocket conn, ClientHandshake handshake) {
+        conn.setAttachment(new Session(conn));
+    }
+
+    @Override
+    public void onClose(WebSocket conn, int code, String reason, boolean remote) {
+        Session session = conn.getAttachment();
+        if (session != null) {
+            session.collectMalformed();
+        }
+    }
+
+    // Each connection's frames arrive on one worker thread, so the per session decoders need no locking
+    @Override
+    public void onMessage(WebSocket conn, String message) {
+        Session session = conn.getAttachment();
+        session.binary = false;
+        textFrameCount.incrementAndGet();
+        session.decoder.feed(message);
+        session.collectMalformed();
+    }
+
+    @Override
+    public void onMessage(WebSocket conn, ByteBuffer message) {
+        Session session = conn.getAttachment();
+        session.binary = true;
+        binaryFrameCount.incrementAndGet();
+        session.binaryCodec.decode(message, session);
+        session.collectMalformed();
+    }
+
+    @Override
+    public void onError(WebSocket conn, Exception ex) {
+        System.err.println("Robot simulator error: " + ex);
+    }
+
+    private void handle(Session session, int packetId, Receiver receiver, Process process, Component component,
+                        Index index, int[] payload, int length) {
+        packetCount.incrementAndGet();
+        Transmitter node = nodeFor(receiver, component);
+        if (process == Process.WRITE) {
+            writeOrder.add(component);
+        }
+        if (process == Process.WRITE && component == Component.MOTOR_DRIVE && length == MOTOR_COUNT) {
+            setMotors(payload);
+            motorCommandCount.incrementAndGet();
+            if (ackMotorCommands) {
+                reply(session, packetId, node, Process.ACK, component, index, 0, 0);
+            }
+        } else if (process == Process.WRITE && length >= 2) {
+            setParameter(component, index, payload[0], payload[1]);
+            if (component == Component.OUT_BRAKE) {
+                setBrake(payload[1] != 0);
+            }
+            reply(session, packetId, node, Process.ACK, component, index, payload[0], 0);
+        } else if (process == Process.READ && length >= 1) {
+            reply(session, packetId, node, Process.ANSWER, component, index, payload[0],
+                    getParameter(component, index, payload[0]));
+        }
+    }
+
+    private synchronized void setMotors(int[] speeds) {
+        for (int i = 0; i < MOTOR_COUNT; i++) {
+            motorSpeeds[i] = brakeEngaged ? 0 : speeds[i];
+        }
+    }
+
+    private synchronized void setBrake(boolean engaged) {
+        brakeEngaged = engaged;
+        if (engaged) {
+            for (int i = 0; i < MOTOR_COUNT; i++) {
+                motorSpeeds[i] = 0;
+            }
+        }
+    }
+
+    private void reply(Session session, int packetId, Transmitter node, Process process, Component component,
+                       Index index, int parameter, int value) {
+        ByteBuffer buffer = ByteBuffer.allocate(PacketEncoder.MAX_PACKET_SIZE);
+        boolean binary = session.binary;
+        if (binary) {
+            BinaryPacketCodec.encode(buffer, packetId, node, Receiver.MASTER, process, component, index,
+                    new int[]{parameter, value}, 2);
+        } else if (process == Process.ACK) {
+            PacketEncoder.encodeAck(buffer, packetId, node, Receiver.MASTER, component, index, parameter, value);
+        } else {
+            PacketEncoder.encodeAnswer(buffer, packetId, node, Receiver.MASTER, component, index, parameter, value);
+        }
+        buffer.flip();
+        Runnable send = () -> {
+            if (!session.conn.isOpen()) {
+                return;
+            }
+            if (binary) {
+                session.conn.send(buffer);
+            } else {
+                session.conn.send(new String(buffer.array(), 0, buffer.limit(), StandardCharsets.US_ASCII));
+            }
+            replyCount.incrementAndGet();
+        };
+        long delay = processingDelayMicros;
+        if (delay > 0) {
+            replyScheduler.schedule(send, delay, TimeUnit.MICROSECONDS);
+        } else {
+            send.run();
+        }
+    }
+
+    // Replies come from the addressed node; broadcasts are answered by the node owning the component
+    private static Transmitter nodeFor(Receiver receiver, Component component) {
+        switch (receiver) {
+            case MOTOR_CONTROLLER:
+                return Transmitter.MOTOR_CONTROLLER;
+            case MAIN_BOARD:
+                return Transmitter.MAIN_BOARD;
+            default:
+                return component.ordinal() <= Component.MOTOR_ADD.ordinal()
+                        ? Transmitter.MOTOR_CONTROLLER : Transmitter.MAIN_BOARD;
+        }
+    }
+
+    private static long key(Component component, Index index, int parameter) {
+        return (long) component.ordinal() << 40 | (long) index.ordinal() << 32 | (parameter & 0xFFFFFFFFL);
+    }
+
+    // Decoder state of one client connection
+    private final class Session implements PacketHandler {
+
+        final WebSocket conn;
+        final PacketDecoder decoder = new PacketDecoder();
+        final BinaryPacketCodec binaryCodec = new BinaryPacketCodec();
+        volatile boolean binary;
+        private long reportedMalformed;
+
+        Session(WebSocket conn) {
+            this.conn = conn;
+            decoder.addHandler(this);
+        }
+
+        @Override
+        public void onPacket(int packetId, Transmitter transmitter, Receiver receiver, Process process,
+                             Component component, Index index, int[] payload, int length) {
+            handle(this, packetId, receiver, process, component, index, payload, length);
+        }
+
+        void collectMalformed() {
+            long total = decoder.getMalformedCount() + binaryCodec.getMalformedCount();
+            malformedCount.addAndGet(total - reportedMalformed);
+            reportedMalformed = total;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.ahmet.eldrctestapplication.simulator;
+
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Component;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Index;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Process;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Receiver;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Transmitter;
+import com.ahmet.eldrctestapplication.log.LogAdapter;
+import com.ahmet.eldrctestapplication.websocket.SendPriority;
+import com.ahmet.eldrctestapplication.websocket.WebSocketManager;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Drives {@link WebSocketManager} against the simulator over the loopback interface.
+ */
+public class RobotSimulatorTest {
+
+    private RobotSimulator simulator;
+    private WebSocketManager manager;
+
+    @Before
+    public void setUp() throws Exception {
+        simulator = new RobotSimulator("127.0.0.1", 0);
+        simulator.start();
+        assertTrue(simulator.awaitStart(5, TimeUnit.SECONDS));
+        manager = new WebSocketManager("ws://127.0.0.1:" + simulator.getPort(), new LogAdapter(null, new ArrayList<>(), null));
+        assertTrue(manager.getWebSocket().connectBlocking(5, TimeUnit.SECONDS));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        manager.disconnect();
+        manager.shutdown();
+        simulator.stopSimulator();
+    }
+
+    @Test
+    public void writeThenRead_returnsWrittenValue() throws Exception {
+        assertEquals(0, (int) manager.writeParameter(Receiver.MAIN_BOARD, Component.LED_HEADLIGHT, Index.INDEX_1, 3, 80)
+                .get(2, TimeUnit.SECONDS));
+        assertEquals(80, (int) manager.readParameter(Receiver.MAIN_BOARD, Component.LED_HEADLIGHT, Index.INDEX_1, 3)
+                .get(2, TimeUnit.SECONDS));
+        assertEquals(80, simulator.getParameter(Component.LED_HEADLIGHT, Index.INDEX_1, 3));
+    }
+
+    @Test
+    public void broadcastRead_isAnsweredAfterProcessingDelay() throws Exception {
+        simulator.setProcessingDelay(50, TimeUnit.MILLISECONDS);
+        simulator.setParameter(Component.MOTOR_ARM, Index.INDEX_2, 1, -12);
+        long start = System.nanoTime();
+        assertEquals(-12, (int) manager.readParameter(Receiver.ALL, Component.MOTOR_ARM, Index.INDEX_2, 1)
+                .get(2, TimeUnit.SECONDS));
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    public void brake_holdsMotorsAtZero() throws Exception {
+        manager.sendMessage(RobotMessageBuilder.createMotorSpeedPacket(Transmitter.MASTER, Receiver.ALL,
+                Component.MOTOR_DRIVE, 40, 40, 40, -35, -35, -35));
+        manager.writeParameter(Receiver.MAIN_BOARD, Component.OUT_BRAKE, Index.INDEX_1, 0, 1).get(2, TimeUnit.SECONDS);
+        assertTrue(simulator.isBrakeEngaged());
+        assertArrayEquals(new int[6], simulator.getMotorSpeeds());
+
+        manager.sendMessage(RobotMessageBuilder.createMotorSpeedPacket(Transmitter.MASTER, Receiver.ALL,
+                Component.MOTOR_DRIVE, 50, 50, 50, 50, 50, 50));
+        manager.readParameter(Receiver.MAIN_BOARD, Component.OUT_BRAKE, Index.INDEX_1, 0).get(2, TimeUnit.SECONDS);
+        assertArrayEquals(new int[6], simulator.getMotorSpeeds());
+        assertEquals(2, simulator.getMotorCommandCount());
+        assertEquals(0, simulator.getMalformedCount());
+    }
+
+    @Test
+    public void batchedMove_neverReachesTheRobotAfterAStop() throws Exception {
+        // Long window: the move is still batched when the stop is posted
+        manager.enableBatching(2000, 4096);
+        manager.postCommand(Component.MOTOR_DRIVE, RobotMessageBuilder.createMotorSpeedPacket(Transmitter.MASTER,
+                Receiver.ALL, Component.MOTOR_DRIVE, 40, 40, 40, 40, 40, 40));
+        Thread.sleep(100);
+        manager.postCommand(Component.MOTOR_DRIVE, RobotMessageBuilder.createMotorSpeedPacket(Transmitter.MASTER,
+                Receiver.ALL, Component.MOTOR_DRIVE, 0, 0, 0, 0, 0, 0), SendPriority.SAFETY);
+        awaitDelivered();
+
+        assertEquals(Arrays.asList(Component.MOTOR_DRIVE), simulator.getWriteOrder());
+        assertArrayEquals(new int[6], simulator.getMotorSpeeds());
+    }
+
+    @Test
+    public void batchedMove_goesOutBeforeABrake() throws Exception {
+        manager.enableBatching(2000, 4096);
+        manager.postCommand(Component.MOTOR_DRIVE, RobotMessageBuilder.createMotorSpeedPacket(Transmitter.MASTER,
+                Receiver.ALL, Component.MOTOR_DRIVE, 40, 40, 40, 40, 40, 40));
+        Thread.sleep(100);
+        manager.postCommand(Component.OUT_BRAKE, RobotMessageBuilder.createWritePacket(Transmitter.MASTER,
+                Receiver.MAIN_BOARD, Component.OUT_BRAKE, Index.INDEX_1, 0, 1));
+        awaitDelivered();
+
+        assertEquals(Arrays.asList(Component.MOTOR_DRIVE, Component.OUT_BRAKE), simulator.getWriteOrder());
+        assertTrue(simulator.isBrakeEngaged());
+        assertArrayEquals(new int[6], simulator.getMotorSpeeds());
+    }
+
+    // Waits until the writer sent the safety command, flushes the batch and waits for a reply;
+    // TCP order means everything sent before has been handled
+    private void awaitDelivered() throws Exception {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (manager.getSocketWriter().getSafetySentCount() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        manager.disableBatching();
+        manager.readParameter(Receiver.MAIN_BOARD, Component.LED_LAMP, Index.INDEX_1, 0).get(2, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void binaryWireFormat_carriesCommandsRequestsAndBatches() throws Exception {
+        manager.setWireFormat(WebSocketManager.WireFormat.BINARY);
+        manager.postCommand(Component.MOTOR_DRIVE, RobotMessageBuilder.createMotorSpeedPacket(Transmitter.MASTER,
+                Receiver.ALL, Component.MOTOR_DRIVE, 40, 40, 40, -35, -35, -35));
+        assertEquals(0, (int) manager.writeParameter(Receiver.MAIN_BOARD, Component.LED_HEADLIGHT, Index.INDEX_1, 3, 80)
+                .get(2, TimeUnit.SECONDS));
+
+        manager.enableBatching(1, 4096);
+        assertEquals(80, (int) manager.readParameter(Receiver.MAIN_BOARD, Component.LED_HEADLIGHT, Index.INDEX_1, 3)
+                .get(2, TimeUnit.SECONDS));
+        // Not a protocol packet, dropped rather than sent as text
+        manager.disableBatching();
+        manager.sendMessage("hello robot");
+        manager.readParameter(Receiver.MAIN_BOARD, Component.LED_LAMP, Index.INDEX_1, 0).get(2, TimeUnit.SECONDS);
+        // The motor command went out on the writer thread
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (simulator.getMotorCommandCount() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+
+        assertArrayEquals(new int[]{40, 40, 40, -35, -35, -35}, simulator.getMotorSpeeds());
+        assertEquals(0, simulator.getTextFrameCount());
+        assertEquals(4, simulator.getBinaryFrameCount());
+        assertEquals(0, simulator.getMalformedCount());
+    }
+
+    @Test
+    public void packetOnClosedSocket_reportsTheFailure() throws Exception {
+        assertTrue(manager.sendPacket(Transmitter.MASTER, Receiver.ALL, Process.WRITE, Component.MOTOR_DRIVE,
+                Index.ALL, 0, 0, 0, 0, 0, 0));
+        manager.getWebSocket().closeBlocking();
+        assertFalse(manager.sendPacket(Transmitter.MASTER, Receiver.ALL, Process.WRITE, Component.MOTOR_DRIVE,
+                Index.ALL, 0, 0, 0, 0, 0, 0));
+    }
+
+    @Test
+    public void requestOnClosedSocket_failsWithoutWaitingForTheTimeout() throws Exception {
+        manager.getWebSocket().closeBlocking();
+        CompletableFuture<Integer> read = manager.readParameter(Receiver.MAIN_BOARD, Component.LED_HEADLIGHT, Index.INDEX_1, 3);
+        // Failed before returning, not after the request timeout
+        assertTrue(read.isCompletedExceptionally());
+    }
+}
@@ -0,0 +1,120 @@
+package com.ahmet.eldrctestapplication.websocket;
+
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Component;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Index;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Receiver;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Transmitter;
+import com.ahmet.eldrctestapplication.log.LogAdapter;
+import com.ahmet.eldrctestapplication.simulator.RobotSimulator;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Group broadcasts of {@link ConnectionManager} against two simulated robots.
+ */
+public class ConnectionManagerTest {
+
+    private RobotSimulator left;
+    private RobotSimulator right;
+    private ConnectionManager manager;
+
+    @Before
+    public void setUp() throws Exception {
+        left = start();
+        right = start();
+        manager = new ConnectionManager(new LogAdapter(null, new ArrayList<>(), null));
+        connect("left", left);
+        connect("right", right);
+        // Never connected, broadcasts skip it
+        manager.add("offline", "ws://127.0.0.1:1");
+        manager.addToGroup("all", "left");
+        manager.addToGroup("all", "right");
+        manager.addToGroup("all", "offline");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        manager.shutdown();
+        left.stopSimulator();
+        right.stopSimulator();
+    }
+
+    private static RobotSimulator start() throws InterruptedException {
+        RobotSimulator simulator = new RobotSimulator("127.0.0.1", 0);
+        simulator.start();
+        assertTrue(simulator.awaitStart(5, TimeUnit.SECONDS));
+        return simulator;
+    }
+
+    private void connect(String robotId, RobotSimulator simulator) throws InterruptedException {
+        manager.add(robotId, "ws://127.0.0.1:" + simulator.getPort());
+        assertTrue(manager.get(robotId).getWebSocket().connectBlocking(5, TimeUnit.SECONDS));
+    }
+
+    private static void awaitWrites(RobotSimulator simulator, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (simulator.getWriteOrder().size() < count && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+
+    // The writer counts a safety send after the write returned, the simulator may see it first
+    private void awaitSafetySent(String robotId, long count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (manager.get(robotId).getSocketWriter().getSafetySentCount() < count && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    public void broadcast_reachesEveryConnectedMember() throws Exception {
+        String brake = RobotMessageBuilder.createWritePacket(Transmitter.MASTER, Receiver.MAIN_BOARD,
+                Component.OUT_BRAKE, Index.INDEX_1, 0, 1);
+        assertEquals(2, manager.broadcast("all", Component.OUT_BRAKE, brake));
+        awaitWrites(left, 1);
+        awaitWrites(right, 1);
+        assertTrue(left.isBrakeEngaged());
+        assertTrue(right.isBrakeEngaged());
+        // Brakes default to the safety lane
+        awaitSafetySent("left", 1);
+        assertEquals(1, manager.get("left").getSocketWriter().getSafetySentCount());
+        assertEquals(0, manager.broadcast("none", Component.OUT_BRAKE, brake));
+    }
+
+    @Test
+    public void broadcastAll_usesTheGivenPriority() throws Exception {
+        String stop = RobotMessageBuilder.createMotorSpeedPacket(Transmitter.MASTER, Receiver.ALL,
+                Component.MOTOR_DRIVE, 0, 0, 0, 0, 0, 0);
+        assertEquals(2, manager.broadcastAll(Component.MOTOR_DRIVE, stop, SendPriority.SAFETY));
+        awaitWrites(left, 1);
+        awaitWrites(right, 1);
+        assertEquals(Collections.singletonList(Component.MOTOR_DRIVE), left.getWriteOrder());
+        awaitSafetySent("left", 1);
+        awaitSafetySent("right", 1);
+        assertEquals(1, manager.get("left").getSocketWriter().getSafetySentCount());
+        assertEquals(1, manager.get("right").getSocketWriter().getSafetySentCount());
+
+        // Without a priority a motor command takes the control lane
+        manager.broadcastAll(Component.MOTOR_DRIVE, stop);
+        awaitWrites(left, 2);
+        assertEquals(1, manager.get("left").getSocketWriter().getSafetySentCount());
+    }
+
+    @Test
+    public void remove_dropsTheRobotFromItsGroups() {
+        assertTrue(manager.remove("right"));
+        assertFalse(manager.remove("right"));
+        assertEquals(2, manager.getGroup("all").size());
+        assertFalse(manager.getGroup("all").contains("right"));
+        assertEquals(2, manager.size());
+    }
+}
@@ -0,0 +1,88 @@
+package com.ahmet.eldrctestapplication.websocket;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Bucket boundaries and percentile math of the log-linear latency histogram.
+ */
+public class LatencyHistogramTest {
+
+    // Value reported for the bucket holding value when it is the only one recorded below a larger max
+    private static long bucketTop(long value) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(value);
+        histogram.record(Long.MAX_VALUE);
+        return histogram.getValueAtPercentile(50);
+    }
+
+    @Test
+    public void valuesBelow64_haveExactBuckets() {
+        for (long value = 0; value < 64; value++) {
+            assertEquals(value, bucketTop(value));
+        }
+    }
+
+    @Test
+    public void valuesFrom64_shareBucketsOfAbout3Percent() {
+        // 64 and 65 share the first log bucket, 66 starts the next one
+        assertEquals(65, bucketTop(64));
+        assertEquals(65, bucketTop(65));
+        assertEquals(67, bucketTop(66));
+        // Each power of two is split into 32 buckets
+        assertEquals(131, bucketTop(128));
+        assertEquals(1007, bucketTop(1000));
+        for (long value = 64; value < 1_000_000; value = value * 3 / 2) {
+            long top = bucketTop(value);
+            assertTrue(value + " -> " + top, top >= value && top - value <= value / 32 + 1);
+        }
+    }
+
+    @Test
+    public void largestValues_stayInRange() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(Long.MAX_VALUE);
+        histogram.record(Long.MAX_VALUE / 2);
+        assertEquals(2, histogram.getCount());
+        assertEquals(Long.MAX_VALUE, histogram.getMax());
+        // The log buckets reach Long.MAX_VALUE, so there is no separate overflow bucket to fall into
+        assertEquals(Long.MAX_VALUE, histogram.getValueAtPercentile(100));
+        assertTrue(histogram.getValueAtPercentile(50) >= Long.MAX_VALUE / 2);
+    }
+
+    @Test
+    public void percentiles_ofAUniformDistribution() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int value = 1; value <= 1000; value++) {
+            histogram.record(value);
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500.5, histogram.getMean(), 1e-9);
+        assertEquals(1, histogram.getValueAtPercentile(0));
+        assertEquals(503, histogram.getValueAtPercentile(50));
+        assertEquals(911, histogram.getValueAtPercentile(90));
+        assertEquals(991, histogram.getValueAtPercentile(99));
+        assertEquals(1000, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void negativeValues_addAndReset() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        assertEquals(0, histogram.getValueAtPercentile(100));
+
+        LatencyHistogram other = new LatencyHistogram();
+        other.record(40);
+        other.record(5000);
+        histogram.add(other);
+        assertEquals(3, histogram.getCount());
+        assertEquals(5000, histogram.getMax());
+        assertEquals(40, histogram.getValueAtPercentile(50));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.getValueAtPercentile(99));
+    }
+}
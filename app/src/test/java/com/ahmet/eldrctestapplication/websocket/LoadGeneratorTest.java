@@ -0,0 +1,90 @@
+package com.ahmet.eldrctestapplication.websocket;
+
+import com.ahmet.eldrctestapplication.log.LogAdapter;
+import com.ahmet.eldrctestapplication.simulator.RobotSimulator;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Open loop scheduling of the load generator against the simulator, including a stalled sender.
+ */
+public class LoadGeneratorTest {
+
+    private RobotSimulator simulator;
+    private WebSocketManager manager;
+
+    @Before
+    public void setUp() throws Exception {
+        simulator = new RobotSimulator("127.0.0.1", 0);
+        simulator.start();
+        assertTrue(simulator.awaitStart(5, TimeUnit.SECONDS));
+        manager = new WebSocketManager("ws://127.0.0.1:" + simulator.getPort(), new LogAdapter(null, new ArrayList<>(), null));
+        assertTrue(manager.getWebSocket().connectBlocking(5, TimeUnit.SECONDS));
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        manager.stopLoad();
+        manager.disconnect();
+        manager.shutdown();
+        simulator.stopSimulator();
+    }
+
+    private static long sent(LoadGenerator.Report report) {
+        return report.motorCount + report.writeCount + report.readCount;
+    }
+
+    @Test
+    public void load_followsTheRateAndMix_andAwaitsEveryReply() throws Exception {
+        manager.startLoad(200, 2, 1, 1);
+        Thread.sleep(500);
+        LoadGenerator.Report report = manager.stopLoad();
+
+        // Packet k is due at k / rate, so the count follows the run time
+        long expected = report.durationMs * 200 / 1000;
+        assertTrue(report.toString(), Math.abs(sent(report) - expected) <= 5);
+        assertTrue(report.toString(), report.motorCount > report.writeCount && report.writeCount > 0 && report.readCount > 0);
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while ((manager.getLoadGenerator().getReport().replyCount < report.writeCount + report.readCount
+                || simulator.getPacketCount() < sent(report)) && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        LoadGenerator.Report settled = manager.getLoadGenerator().getReport();
+        assertEquals(report.writeCount + report.readCount, settled.replyCount);
+        assertEquals(0, settled.getErrorCount());
+        assertEquals(sent(report), simulator.getPacketCount());
+    }
+
+    @Test
+    public void stalledSender_isMadeUpAndChargedToTheLatency() throws Exception {
+        // Packet 50 is due after 100 ms and blocks for 200 ms, like a send stuck on the socket
+        LoadGenerator generator = new LoadGenerator(manager, sequence -> {
+            if (sequence == 50) {
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        generator.setRate(500);
+        generator.start();
+        Thread.sleep(400);
+        LoadGenerator.Report report = generator.stop();
+
+        // Packets due during the stall went out afterwards instead of being skipped
+        long expected = report.durationMs * 500 / 1000;
+        assertTrue(report.toString(), sent(report) >= expected - 10);
+        // and their latency counts from when they were due, not from when the send started
+        assertTrue(report.toString(), report.sendLatency.getMax() >= TimeUnit.MILLISECONDS.toMicros(150));
+        assertTrue(report.toString(), report.sendLatency.getValueAtPercentile(50) < report.sendLatency.getMax());
+    }
+}
@@ -0,0 +1,96 @@
+package com.ahmet.eldrctestapplication.websocket;
+
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Component;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Overflow policies of the bounded outbound queue at capacity.
+ */
+public class OutboundQueueTest {
+
+    private static List<String> drain(OutboundQueue queue) {
+        List<String> packets = new ArrayList<>();
+        OutboundPacket packet;
+        while ((packet = queue.poll()) != null) {
+            packets.add(packet.packet);
+        }
+        return packets;
+    }
+
+    @Test
+    public void dropOldest_evictsTheHeadToMakeRoom() {
+        OutboundQueue queue = new OutboundQueue(3, OutboundQueue.OverflowPolicy.DROP_OLDEST);
+        for (String packet : new String[]{"a", "b", "c", "d", "e"}) {
+            assertTrue(queue.offer(packet));
+        }
+        assertEquals(3, queue.size());
+        assertEquals(Arrays.asList("c", "d", "e"), drain(queue));
+        assertEquals(5, queue.getOfferedCount());
+        assertEquals(2, queue.getDroppedCount());
+        assertEquals(3, queue.getMaxDepth());
+    }
+
+    @Test
+    public void dropNewest_rejectsThePacketAndKeepsTheQueue() {
+        OutboundQueue queue = new OutboundQueue(3, OutboundQueue.OverflowPolicy.DROP_NEWEST);
+        assertTrue(queue.offer("a"));
+        assertTrue(queue.offer("b"));
+        assertTrue(queue.offer("c"));
+        assertFalse(queue.offer("d"));
+        assertFalse(queue.offer(Component.MOTOR_DRIVE, "e"));
+        assertEquals(Arrays.asList("a", "b", "c"), drain(queue));
+        assertEquals(2, queue.getDroppedCount());
+
+        // Room again after draining, the ring wraps around
+        assertTrue(queue.offer("f"));
+        assertEquals(Arrays.asList("f"), drain(queue));
+    }
+
+    @Test
+    public void coalesce_replacesTheQueuedPacketOfTheSameComponentInPlace() {
+        OutboundQueue queue = new OutboundQueue(3, OutboundQueue.OverflowPolicy.COALESCE);
+        assertTrue(queue.offer(Component.MOTOR_DRIVE, "drive1"));
+        assertTrue(queue.offer(Component.LED_LAMP, "lamp1"));
+        assertTrue(queue.offer(Component.MOTOR_DRIVE, "drive2"));
+        assertTrue(queue.offer(Component.MOTOR_DRIVE, "drive3"));
+        assertEquals(2, queue.size());
+        assertEquals(2, queue.getCoalescedCount());
+        assertEquals(0, queue.getDroppedCount());
+        // The newest command keeps the queue position of the first one
+        assertEquals(Arrays.asList("drive3", "lamp1"), drain(queue));
+    }
+
+    @Test
+    public void coalesce_fallsBackToDropOldestForNewKeysAndUnkeyedPackets() {
+        OutboundQueue queue = new OutboundQueue(3, OutboundQueue.OverflowPolicy.COALESCE);
+        queue.offer(Component.MOTOR_DRIVE, "drive1");
+        queue.offer("raw1");
+        queue.offer("raw2");
+        // Full: a packet for a queued component still replaces in place, nothing is lost
+        assertTrue(queue.offer(Component.MOTOR_DRIVE, "drive2"));
+        assertEquals(0, queue.getDroppedCount());
+        // Unkeyed packets are never coalesced, a new component evicts the oldest
+        assertTrue(queue.offer("raw2"));
+        assertTrue(queue.offer(Component.OUT_BRAKE, "brake"));
+        assertEquals(2, queue.getDroppedCount());
+        assertEquals(Arrays.asList("raw2", "raw2", "brake"), drain(queue));
+    }
+
+    @Test
+    public void clear_countsEverythingAsDropped() {
+        OutboundQueue queue = new OutboundQueue(4, OutboundQueue.OverflowPolicy.DROP_OLDEST);
+        queue.offer("a");
+        queue.offer("b");
+        queue.clear();
+        assertEquals(0, queue.size());
+        assertNull(queue.poll());
+        assertEquals(2, queue.getDroppedCount());
+    }
+}
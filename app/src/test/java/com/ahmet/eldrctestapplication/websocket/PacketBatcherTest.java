@@ -0,0 +1,140 @@
+package com.ahmet.eldrctestapplication.websocket;
+
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Component;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Index;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Receiver;
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Transmitter;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Frame contents, encoding and send ordering of the packet batcher.
+ */
+public class PacketBatcherTest {
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final List<String> frames = new CopyOnWriteArrayList<>();
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    private PacketBatcher batcher(int maxBytes) {
+        // A window long enough that only explicit flushes and full batches send
+        return new PacketBatcher(10, TimeUnit.SECONDS, maxBytes, scheduler,
+                frame -> frames.add(StandardCharsets.UTF_8.decode(frame).toString()));
+    }
+
+    @Test
+    public void packetsWithinBudget_goOutAsOneFrame() {
+        PacketBatcher batcher = batcher(64);
+        batcher.add("001XAIAA[1]");
+        batcher.add(ByteBuffer.wrap("002XAIAA[2]".getBytes(StandardCharsets.US_ASCII)));
+        assertTrue(frames.isEmpty());
+        batcher.flush();
+        assertEquals(1, frames.size());
+        assertEquals("001XAIAA[1]002XAIAA[2]", frames.get(0));
+        assertEquals(2, batcher.getPacketCount());
+    }
+
+    @Test
+    public void nonAsciiText_isSentAsUtf8() {
+        PacketBatcher batcher = batcher(64);
+        batcher.add("003XM#GA[çğü]");
+        batcher.flush();
+        assertEquals("003XM#GA[çğü]", frames.get(0));
+    }
+
+    @Test
+    public void oversizedPacket_followsWhatIsAlreadyBatched() {
+        PacketBatcher batcher = batcher(16);
+        batcher.add("001XAIAA[1]");
+        batcher.add("002XAIAA[1:2:3:4:5:6]");
+        assertEquals(2, frames.size());
+        assertEquals("001XAIAA[1]", frames.get(0));
+        assertEquals("002XAIAA[1:2:3:4:5:6]", frames.get(1));
+    }
+
+    @Test
+    public void add_doesNotWaitForAFrameBeingSent() throws Exception {
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PacketBatcher batcher = new PacketBatcher(10, TimeUnit.SECONDS, 64, scheduler, frame -> {
+            sending.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        batcher.add("001XAIAA[1]");
+        Thread flusher = new Thread(batcher::flush);
+        flusher.start();
+        assertTrue(sending.await(5, TimeUnit.SECONDS));
+
+        long start = System.nanoTime();
+        batcher.add("002XAIAA[2]");
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(1));
+        release.countDown();
+        flusher.join(5000);
+        assertEquals(1, batcher.getFrameCount());
+    }
+
+    @Test
+    public void sendAhead_dropsBatchedWritesForTheComponentAndFlushesTheRest() {
+        PacketBatcher batcher = batcher(256);
+        String move = RobotMessageBuilder.createMotorSpeedPacket(Transmitter.MASTER, Receiver.ALL,
+                Component.MOTOR_DRIVE, 40, 40, 40, 40, 40, 40);
+        String read = RobotMessageBuilder.createReadPacket(Transmitter.MASTER, Receiver.MOTOR_CONTROLLER,
+                Component.MOTOR_DRIVE, Index.INDEX_1, 2);
+        String light = RobotMessageBuilder.createWritePacket(Transmitter.MASTER, Receiver.MAIN_BOARD,
+                Component.LED_HEADLIGHT, Index.INDEX_1, 0, 1);
+        batcher.add(move);
+        batcher.add(read);
+        batcher.add(light);
+
+        batcher.sendAhead(PacketBatcher.componentOf(move), () -> frames.add("STOP"));
+        assertEquals(2, frames.size());
+        assertEquals(read + light, frames.get(0));
+        assertEquals("STOP", frames.get(1));
+        assertEquals(1, batcher.getDiscardedCount());
+        assertEquals(2, batcher.getPacketCount());
+
+        batcher.flush();
+        assertEquals(2, frames.size());
+    }
+
+    @Test
+    public void sendAhead_keepsItemBoundariesForNonProtocolText() {
+        PacketBatcher batcher = batcher(1024);
+        String move = RobotMessageBuilder.createMotorSpeedPacket(Transmitter.MASTER, Receiver.ALL,
+                Component.MOTOR_DRIVE, 40, 40, 40, 40, 40, 40);
+        StringBuilder expected = new StringBuilder();
+        // Text without a closing ']' or with several of them must not shift the packets around it
+        for (int i = 0; i < 20; i++) {
+            String text = i % 2 == 0 ? "hello" : "a]b]";
+            batcher.add(text);
+            batcher.add(move);
+            expected.append(text);
+        }
+
+        batcher.sendAhead(Component.MOTOR_DRIVE, () -> frames.add("STOP"));
+        assertEquals(expected.toString(), frames.get(0));
+        assertEquals(20, batcher.getDiscardedCount());
+        assertEquals(20, batcher.getPacketCount());
+    }
+}
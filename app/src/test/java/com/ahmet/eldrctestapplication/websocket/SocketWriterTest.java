@@ -0,0 +1,191 @@
+package com.ahmet.eldrctestapplication.websocket;
+
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Component;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.Assert.*;
+
+/**
+ * Mailbox replacement, lane order, parking, staleness checks and bulk streaming of the socket writer.
+ */
+public class SocketWriterTest {
+
+    private final List<String> sent = new CopyOnWriteArrayList<>();
+    private SocketWriter writer;
+
+    @After
+    public void tearDown() {
+        if (writer != null) {
+            writer.stop();
+        }
+    }
+
+    private static OutboundPacket stamped(String packet, long ageMs) {
+        return new OutboundPacket(packet, System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(ageMs));
+    }
+
+    private void awaitSent(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (writer.getSentCount() + writer.getStaleDroppedCount() < count && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+
+    @Test
+    public void packetOverMaxAge_isDropped_butSafetyPacketIsSent() throws Exception {
+        writer = new SocketWriter("test", sent::add);
+        writer.setMaxAge(50, TimeUnit.MILLISECONDS);
+        writer.post(SendPriority.CONTROL, Component.MOTOR_DRIVE, stamped("old move", 200));
+        writer.post(SendPriority.BULK, Component.LED_HEADLIGHT, stamped("old light", 200));
+        writer.post(SendPriority.SAFETY, Component.OUT_BRAKE, stamped("old brake", 200));
+        writer.post(SendPriority.CONTROL, Component.MOTOR_ARM, stamped("fresh arm", 0));
+        awaitSent(4);
+
+        assertEquals(2, writer.getStaleDroppedCount());
+        assertEquals(Arrays.asList("old brake", "fresh arm"), new ArrayList<>(sent));
+        assertEquals(1, writer.getSafetySentCount());
+    }
+
+    @Test
+    public void maxAgeZero_sendsRegardlessOfAge() throws Exception {
+        writer = new SocketWriter("test", sent::add);
+        writer.setMaxAge(0, TimeUnit.MILLISECONDS);
+        writer.post(SendPriority.CONTROL, Component.MOTOR_DRIVE, stamped("old move", 10_000));
+        awaitSent(1);
+        assertEquals(0, writer.getStaleDroppedCount());
+        assertEquals(1, sent.size());
+    }
+
+    @Test
+    public void bulkSource_interleavesWithControlCommands() throws Exception {
+        int chunks = 5_000_000;
+        AtomicInteger streamed = new AtomicInteger();
+        AtomicInteger streamedAtMove = new AtomicInteger(-1);
+        writer = new SocketWriter("test", packet -> streamedAtMove.set(streamed.get()));
+        writer.stream(() -> streamed.get() < chunks && streamed.incrementAndGet() > 0);
+        while (streamed.get() < 1000) {
+            Thread.sleep(1);
+        }
+        int before = streamed.get();
+        writer.post(SendPriority.CONTROL, Component.MOTOR_DRIVE, stamped("move", 0));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (streamedAtMove.get() < 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        // The move waited for a round of bulk packets, not for the rest of the stream
+        assertTrue(streamedAtMove.get() >= before);
+        assertTrue("move after " + (streamedAtMove.get() - before) + " chunks",
+                streamedAtMove.get() - before < chunks / 100);
+    }
+
+    // Holds the writer inside its first send until released
+    private CountDownLatch blockFirstSend(CountDownLatch sending) {
+        CountDownLatch release = new CountDownLatch(1);
+        writer = new SocketWriter("test", packet -> {
+            if (sending.getCount() > 0) {
+                sending.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            sent.add(packet);
+        });
+        return release;
+    }
+
+    @Test
+    public void newerCommand_replacesTheOneWaitingForItsComponent() throws Exception {
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = blockFirstSend(sending);
+        writer.post(SendPriority.CONTROL, Component.MOTOR_ARM, "arm 1");
+        assertTrue(sending.await(5, TimeUnit.SECONDS));
+
+        // The writer is busy, so these wait in the mailbox and only the newest per component is kept
+        writer.post(SendPriority.CONTROL, Component.MOTOR_DRIVE, "move 1");
+        writer.post(SendPriority.CONTROL, Component.MOTOR_DRIVE, "move 2");
+        writer.post(SendPriority.CONTROL, Component.MOTOR_DRIVE, "move 3");
+        writer.post(SendPriority.CONTROL, Component.MOTOR_ARM, "arm 2");
+        release.countDown();
+        awaitSent(3);
+
+        assertEquals(Arrays.asList("arm 1", "move 3", "arm 2"), new ArrayList<>(sent));
+        assertEquals(5, writer.getPostedCount());
+        assertEquals(2, writer.getReplacedCount());
+    }
+
+    @Test
+    public void lanes_drainSafetyThenControlThenBulk() throws Exception {
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = blockFirstSend(sending);
+        writer.post(SendPriority.CONTROL, Component.LED_LAMP, "first");
+        assertTrue(sending.await(5, TimeUnit.SECONDS));
+
+        writer.enqueue("light");
+        writer.post(SendPriority.CONTROL, Component.MOTOR_DRIVE, "move");
+        writer.post(SendPriority.SAFETY, Component.OUT_BRAKE, "brake");
+        release.countDown();
+        awaitSent(4);
+
+        assertEquals(Arrays.asList("first", "brake", "move", "light"), new ArrayList<>(sent));
+        assertEquals(1, writer.getSafetySentCount());
+    }
+
+    @Test
+    public void safetyCommand_discardsTheSetpointWaitingForItsComponent() throws Exception {
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = blockFirstSend(sending);
+        writer.post(SendPriority.CONTROL, Component.LED_LAMP, "first");
+        assertTrue(sending.await(5, TimeUnit.SECONDS));
+
+        writer.post(SendPriority.CONTROL, Component.MOTOR_DRIVE, "move");
+        writer.post(SendPriority.SAFETY, Component.MOTOR_DRIVE, "stop");
+        release.countDown();
+        awaitSent(2);
+        Thread.sleep(20);
+
+        assertEquals(Arrays.asList("first", "stop"), new ArrayList<>(sent));
+    }
+
+    @Test
+    public void idleWriter_parksAndWakesWhenPosted() throws Exception {
+        writer = new SocketWriter("test", sent::add);
+        Thread thread = null;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (System.nanoTime() < deadline) {
+            for (Thread candidate : Thread.getAllStackTraces().keySet()) {
+                if (candidate.getName().equals("test") && LockSupport.getBlocker(candidate) == writer) {
+                    thread = candidate;
+                }
+            }
+            if (thread != null && thread.getState() == Thread.State.WAITING) {
+                break;
+            }
+            Thread.sleep(1);
+        }
+        assertNotNull("writer thread never parked", thread);
+        assertEquals(Thread.State.WAITING, thread.getState());
+
+        writer.post(SendPriority.CONTROL, Component.MOTOR_DRIVE, "move");
+        awaitSent(1);
+        assertEquals(Arrays.asList("move"), new ArrayList<>(sent));
+        // Parks again once the mailbox is empty
+        deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (thread.getState() != Thread.State.WAITING && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(Thread.State.WAITING, thread.getState());
+    }
+}
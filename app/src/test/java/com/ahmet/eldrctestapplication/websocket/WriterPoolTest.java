@@ -0,0 +1,110 @@
+package com.ahmet.eldrctestapplication.websocket;
+
+import com.ahmet.eldrctestapplication.communication.RobotMessageBuilder.Component;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+/**
+ * Round results of {@link SocketWriter#step()} and the shared {@link WriterPool} thread.
+ */
+public class WriterPoolTest {
+
+    private final List<String> sent = new CopyOnWriteArrayList<>();
+    private WriterPool pool;
+
+    @After
+    public void tearDown() {
+        if (pool != null) {
+            pool.stop();
+        }
+    }
+
+    // A writer on a stopped pool is only drained by the test calling step()
+    private SocketWriter steppedWriter() throws InterruptedException {
+        pool = new WriterPool("test");
+        pool.stop();
+        pool.getThread().join(2000);
+        return new SocketWriter(pool, new OutboundQueue(), sent::add, sent::add);
+    }
+
+    @Test
+    public void step_reportsIdleOnlyWhenEveryLaneIsEmpty() throws Exception {
+        SocketWriter writer = steppedWriter();
+        assertEquals(SocketWriter.IDLE, writer.step());
+
+        writer.post(SendPriority.CONTROL, Component.MOTOR_DRIVE, "move");
+        assertEquals(SocketWriter.BUSY, writer.step());
+        assertEquals(SocketWriter.IDLE, writer.step());
+        assertEquals(Arrays.asList("move"), new ArrayList<>(sent));
+    }
+
+    @Test
+    public void step_writesOneBulkBurstPerRound() throws Exception {
+        SocketWriter writer = steppedWriter();
+        int packets = SocketWriter.BULK_BURST * 2 + 1;
+        for (int i = 0; i < packets; i++) {
+            writer.enqueue("bulk " + i);
+        }
+        assertEquals(SocketWriter.BUSY, writer.step());
+        assertEquals(SocketWriter.BULK_BURST, sent.size());
+        assertEquals(SocketWriter.BUSY, writer.step());
+        assertEquals(SocketWriter.BULK_BURST * 2, sent.size());
+        assertEquals(SocketWriter.BUSY, writer.step());
+        assertEquals(SocketWriter.IDLE, writer.step());
+        assertEquals(packets, sent.size());
+    }
+
+    @Test
+    public void step_holdsAllButSafetyWhileBackpressured() throws Exception {
+        SocketWriter writer = steppedWriter();
+        AtomicLong buffered = new AtomicLong(1000);
+        writer.setBackpressure(buffered::get, 100);
+        writer.post(SendPriority.CONTROL, Component.MOTOR_DRIVE, "move");
+        writer.enqueue("light");
+        writer.post(SendPriority.SAFETY, Component.OUT_BRAKE, "brake");
+
+        assertEquals(SocketWriter.BACKPRESSURED, writer.step());
+        assertEquals(Arrays.asList("brake"), new ArrayList<>(sent));
+        assertEquals(1, writer.getBackpressureWaits());
+
+        buffered.set(0);
+        assertEquals(SocketWriter.BUSY, writer.step());
+        assertEquals(Arrays.asList("brake", "move", "light"), new ArrayList<>(sent));
+    }
+
+    @Test
+    public void pool_drainsEveryWriterWhileOneStreams() throws Exception {
+        pool = new WriterPool("test");
+        AtomicInteger streamed = new AtomicInteger();
+        SocketWriter busy = new SocketWriter(pool, new OutboundQueue(), packet -> { }, packet -> { });
+        SocketWriter quiet = new SocketWriter(pool, new OutboundQueue(), sent::add, sent::add);
+        assertEquals(2, pool.size());
+        busy.stream(() -> streamed.incrementAndGet() > 0);
+        while (streamed.get() < 1000) {
+            Thread.sleep(1);
+        }
+
+        // An endless stream on one connection doesn't keep the other's commands waiting
+        quiet.post(SendPriority.CONTROL, Component.MOTOR_DRIVE, "move");
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (sent.isEmpty() && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(Arrays.asList("move"), new ArrayList<>(sent));
+
+        busy.stop();
+        quiet.stop();
+        assertEquals(0, pool.size());
+    }
+}